@@ -1,22 +1,108 @@
 import java.io.*;
-import java.io.BufferedReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
 import java.math.BigInteger;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
 /**
  * Ultra-optimized FastIO for USACO competitions
  * Features: Async I/O, Variable-size arrays, Mathematical utilities,
  * Memory optimization, Thread safety, Error recovery
  */
 public static class FastIO implements AutoCloseable {
-    private final BufferedReader br;
-    private StringTokenizer st;
-    private final PrintWriter pw;
-    private final ExecutorService executor;
-    private volatile CompletableFuture<String> nextLineFuture;
+    private static final int BUFFER_SIZE = 65536;
+    private static final int RING_SLOTS = 16;
+    private static final int BATCH_SLOTS = 8;
+    private static final int DEFAULT_BATCH_SIZE = 4096;
+    // I/O metrics, switched on with -Dfastio.metrics=true. Being a static final
+    // flag, every "if (METRICS)" block is compiled away when it is off
+    private static final boolean METRICS = Boolean.getBoolean("fastio.metrics");
+    private static final int METRICS_SAMPLE_RATE = Math.max(1, Integer.getInteger("fastio.metrics.sampleRate", 64));
+    private static final int MAP_WINDOW = 1 << 30;
+
+    /**
+     * How far ahead of the parser input is read.
+     * NONE reads byte by byte and never consumes past the current token or line,
+     * which keeps a shared or interactive stream usable by others.
+     * SYNC reads 64 KiB chunks on the calling thread when the parser runs dry.
+     * ASYNC has the FastIO-Reader thread fill a ring of chunks ahead of the parser.
+     * PARSE has the FastIO-Reader thread also split and parse tokens, handing over
+     * batches of ready longs; only token reads (next, nextInt, nextLong, nextDouble,
+     * nextChar, nextBigInteger, hasNext and the array readers built on them) are
+     * available, and line-oriented reads throw UnsupportedOperationException.
+     */
+    public enum Prefetch {
+        NONE, SYNC, ASYNC, PARSE
+    }
+
+    private final InputStream in;
+    // Memory-mapped input: buf is a read-only window of the file starting at
+    // windowStart, remapped as parsing walks past its end
+    private final FileChannel channel;
+    private final long channelSize;
+    private long windowStart;
+    // Raw input is parsed straight out of byte chunks, either read on demand
+    // or handed over by the read-ahead ring
+    private ByteBuffer buf;
+    private final ReadAheadRing ring;
+    private final int readSize;
+    // Heap buffer that lookahead copies into when buf is a ring slot
+    private ByteBuffer lookahead;
+    private int bufPtr, bufLen;
+    private boolean eof;
+    // Prefetch.PARSE: tokens arrive already split and parsed, a batch at a time
+    private final TokenPipeline pipeline;
+    private long[] batchValues;
+    private String[] batchRaw;
+    private int batchPos, batchLen;
+    // True once a token has been taken from the current line, so that
+    // nextLine() continues with the following line like the old reader did
+    private boolean midLine;
+    // Tokens left on a line that a line read moved past, kept for the token
+    // readers as the old StringTokenizer did: while they are read from a
+    // small buf of their own, the input's buffer and position wait in held*
+    private byte[] carried = new byte[64];
+    private int carriedLen;
+    private ByteBuffer heldBuf;
+    private int heldPtr, heldLen;
+    private byte[] scratch = new byte[64];
+    // Reused by the line readers so only the returned array is allocated
+    private final IntList lineInts = new IntList();
+    private final LongList lineLongs = new LongList();
+    private final DoubleList lineDoubles = new DoubleList();
+    private final Charset charset = Charset.defaultCharset();
+    // Output is encoded straight into outBuf and written to out in large blocks
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes();
+    private final OutputStream out;
+    private final byte[] outBuf = new byte[BUFFER_SIZE];
+    private int outPos;
     private final AtomicBoolean closed = new AtomicBoolean(false);
-    private final Object lock = new Object();
+    private final MetricCounters metrics = METRICS ? new MetricCounters() : null;
+    // Prefetch.PARSE byte count at the last resetMetrics(); the reader thread owns the counter
+    private long pipelineBytesBase;
+    // nextToken()'s view, refilled on every call
+    private final Token token = new Token();
+    // nextBigInteger's digit chunks, reused between calls
+    private final LongList bigChunks = new LongList();
+    private static final int BIG_CHUNK_DIGITS = 18;
+    private static final BigInteger BIG_CHUNK_BASE = BigInteger.valueOf(1_000_000_000_000_000_000L);
+    private static volatile BigInteger[] chunkPowers = { BIG_CHUNK_BASE };
     // USACO-specific constants
     public static final int INF = (int) 1e9;
     public static final long LINF = (long) 1e18;
@@ -24,19 +110,56 @@ public static class FastIO implements AutoCloseable {
     public static final int MOD = 1000000007;
     public static final int MOD2 = 998244353;
 
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
     public FastIO() {
         this(System.in, System.out);
     }
 
     public FastIO(InputStream in, OutputStream out) {
-        this.br = new BufferedReader(new InputStreamReader(in), 65536);
-        this.pw = new PrintWriter(new BufferedOutputStream(out, 65536), false);
-        this.executor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r, "FastIO-Reader");
-            t.setDaemon(true);
-            return t;
-        });
-        safePrefetchNextLine();
+        this(in, out, Prefetch.ASYNC);
+    }
+
+    public FastIO(InputStream in, OutputStream out, Prefetch prefetch) {
+        this(in, null, out, prefetch, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * batchSize is the number of tokens per batch with Prefetch.PARSE, which
+     * keeps at most 8 batches in flight; other modes ignore it
+     */
+    public FastIO(InputStream in, OutputStream out, Prefetch prefetch, int batchSize) {
+        this(in, null, out, prefetch, batchSize);
+    }
+
+    private FastIO(InputStream in, FileChannel channel, OutputStream out, Prefetch prefetch, int batchSize) {
+        this.in = in;
+        this.channel = channel;
+        try {
+            this.channelSize = channel != null ? channel.size() : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to size input file", e);
+        }
+        this.out = out;
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.readSize = prefetch == Prefetch.NONE ? 1 : BUFFER_SIZE;
+        this.ring = channel == null && prefetch == Prefetch.ASYNC
+                ? new ReadAheadRing(in, RING_SLOTS, BUFFER_SIZE) : null;
+        this.pipeline = channel == null && prefetch == Prefetch.PARSE
+                ? new TokenPipeline(in, charset, BATCH_SLOTS, batchSize) : null;
+        if (pipeline != null) {
+            // Never filled: the bulk readers find it empty and fall back to readInt()
+            this.buf = ByteBuffer.allocate(0);
+        } else if (channel == null && ring == null) {
+            this.buf = ByteBuffer.allocate(readSize);
+        }
     }
 
     // Constructor for file-based input/output (useful for testing)
@@ -48,521 +171,3680 @@ public static class FastIO implements AutoCloseable {
         this(new FileInputStream(inputFile), new FileOutputStream(outputFile));
     }
 
-    private void safePrefetchNextLine() {
-        if (closed.get())
-            return;
+    // Memory-mapped file input: parses straight from the page cache, so
+    // startup cost on big .in files scales with the pages actually touched
+    public FastIO(String inputFile, boolean mapped) throws IOException {
+        this(mapped ? null : new FileInputStream(inputFile),
+                mapped ? FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ) : null,
+                System.out, Prefetch.ASYNC, DEFAULT_BATCH_SIZE);
+    }
 
-        synchronized (lock) {
-            if (nextLineFuture == null || nextLineFuture.isDone()) {
-                nextLineFuture = CompletableFuture.supplyAsync(() -> {
-                    if (closed.get())
-                        return null;
-                    try {
-                        return br.readLine();
-                    } catch (IOException e) {
-                        if (!closed.get()) {
-                            throw new UncheckedIOException("Failed to read line", e);
-                        }
-                        return null;
-                    }
-                }, executor);
-            }
+    public FastIO(String inputFile, String outputFile, boolean mapped) throws IOException {
+        this(mapped ? null : new FileInputStream(inputFile),
+                mapped ? FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ) : null,
+                new FileOutputStream(outputFile), Prefetch.ASYNC, DEFAULT_BATCH_SIZE);
+    }
+
+    // Moves on to the next chunk of input; returns false once it is exhausted
+    private boolean fill() {
+        if (heldBuf != null) {
+            restoreHeld();
+            if (bufPtr < bufLen)
+                return true;
+        }
+        if (eof)
+            return false;
+        if (closed.get()) {
+            throw new IllegalStateException("FastIO is closed");
+        }
+        if (pipeline != null) {
+            throw pipelineUnsupported();
+        }
+        if (channel != null) {
+            return mapNextWindow();
         }
+
+        int n;
+        if (ring != null) {
+            n = ring.next();
+            buf = ring.current();
+        } else {
+            n = readInto(buf.array(), 0);
+        }
+        bufPtr = 0;
+        bufLen = Math.max(n, 0);
+        eof = n < 0;
+        if (METRICS) {
+            metrics.bytesRead += bufLen;
+        }
+        return !eof;
     }
 
-    // Basic input methods
-    public String next() {
-        while (st == null || !st.hasMoreElements()) {
-            try {
-                String line = nextLine();
-                if (line == null) {
-                    throw new NoSuchElementException("No more input available");
-                }
-                st = new StringTokenizer(line);
-            } catch (UncheckedIOException e) {
-                throw new RuntimeException("Failed to read next token", e);
-            }
+    private int readInto(byte[] dst, int off) {
+        RefillEvent event = new RefillEvent();
+        event.begin();
+        try {
+            int n;
+            do {
+                n = in.read(dst, off, readSize);
+            } while (n == 0);
+            event.finish("stream", n);
+            return n;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read input", e);
         }
-        return st.nextToken();
     }
 
-    public String nextLine() {
+    /**
+     * Makes more input visible past bufLen while keeping the unconsumed bytes
+     * [bufPtr, bufLen) in place, so callers can look ahead without consuming.
+     * Stream input is appended to, or compacted into, a heap buffer that grows
+     * geometrically with the pending bytes; mapped input is remapped from the current
+     * position. Returns false when no more input can be made visible.
+     */
+    private boolean extendBuffer() {
+        if (heldBuf != null)
+            return extendHeld();
+        if (eof)
+            return false;
         if (closed.get()) {
             throw new IllegalStateException("FastIO is closed");
         }
+        if (pipeline != null) {
+            throw pipelineUnsupported();
+        }
+        int pending = bufLen - bufPtr;
+        if (channel != null) {
+            long start = windowStart + bufPtr;
+            int len = (int) Math.min(channelSize - start, MAP_WINDOW);
+            if (len <= pending) {
+                eof = start + len == channelSize;
+                return false;
+            }
+            RefillEvent event = new RefillEvent();
+            event.begin();
+            try {
+                buf = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map input file", e);
+            }
+            event.finish("mapped", len);
+            if (METRICS) {
+                metrics.bytesRead += start + len - (windowStart + bufLen);
+            }
+            windowStart = start;
+            bufPtr = 0;
+            bufLen = len;
+            return true;
+        }
 
-        try {
-            String result;
-            synchronized (lock) {
-                if (nextLineFuture == null) {
-                    result = br.readLine();
-                } else {
-                    result = nextLineFuture.get(5, TimeUnit.SECONDS);
-                    safePrefetchNextLine();
-                }
+        ByteBuffer target = ring != null ? lookahead : buf;
+        int from;
+        if (target != null && target == buf && target.capacity() - bufLen >= readSize) {
+            // Room left behind the pending bytes: append without moving them
+            from = bufPtr;
+        } else {
+            // Compact only into at least twice the pending size, so a long
+            // lookahead costs linear rather than quadratic copying
+            if (target == null || target.capacity() < 2 * pending + readSize) {
+                int capacity = Math.max(2 * pending + readSize, target == null ? 0 : target.capacity() * 2);
+                target = ByteBuffer.allocate(capacity);
             }
-            return result;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new UncheckedIOException("Read operation interrupted", new IOException(e));
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof UncheckedIOException) {
-                throw (UncheckedIOException) cause;
-            }
-            throw new UncheckedIOException("Async read failed", new IOException(cause));
-        } catch (TimeoutException e) {
-            throw new UncheckedIOException("Read operation timed out", new IOException(e));
-        } catch (IOException e) {
-            throw new UncheckedIOException("IO error during read", e);
+            if (pending > 0) {
+                System.arraycopy(buf.array(), bufPtr, target.array(), 0, pending);
+            }
+            from = 0;
+        }
+        int at = from + pending;
+        int n;
+        if (ring != null) {
+            lookahead = target;
+            n = ring.next();
+            if (n > 0) {
+                System.arraycopy(ring.current().array(), 0, target.array(), at, n);
+            }
+        } else {
+            n = readInto(target.array(), at);
+        }
+        buf = target;
+        bufPtr = from;
+        bufLen = at + Math.max(n, 0);
+        eof = n < 0;
+        if (METRICS) {
+            metrics.bytesRead += Math.max(n, 0);
         }
+        return !eof;
     }
 
-    public int nextInt() {
-        return Integer.parseInt(next());
+    private void restoreHeld() {
+        buf = heldBuf;
+        bufPtr = heldPtr;
+        bufLen = heldLen;
+        heldBuf = null;
     }
 
-    public long nextLong() {
-        return Long.parseLong(next());
+    // extendBuffer() while carried tokens are being read: appends the held
+    // input's next bytes behind them, at least doubling what is pending
+    private boolean extendHeld() {
+        int pending = bufLen - bufPtr;
+        if (heldPtr == heldLen) {
+            ByteBuffer own = buf;
+            int ownPtr = bufPtr, ownLen = bufLen;
+            restoreHeld();
+            boolean more = fill();
+            heldBuf = buf;
+            heldPtr = bufPtr;
+            heldLen = bufLen;
+            buf = own;
+            bufPtr = ownPtr;
+            bufLen = ownLen;
+            if (!more) {
+                return false;
+            }
+        }
+        int n = Math.min(heldLen - heldPtr, Math.max(readSize, pending));
+        byte[] bytes = new byte[pending + n];
+        buf.get(bufPtr, bytes, 0, pending);
+        heldBuf.get(heldPtr, bytes, pending, n);
+        heldPtr += n;
+        buf = ByteBuffer.wrap(bytes);
+        bufPtr = 0;
+        bufLen = bytes.length;
+        return true;
     }
 
-    public double nextDouble() {
-        return Double.parseDouble(next());
+    private boolean mapNextWindow() {
+        windowStart += bufLen;
+        bufPtr = 0;
+        bufLen = (int) Math.min(channelSize - windowStart, MAP_WINDOW);
+        if (bufLen <= 0) {
+            bufLen = 0;
+            eof = true;
+            return false;
+        }
+        RefillEvent event = new RefillEvent();
+        event.begin();
+        try {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, bufLen);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map input file", e);
+        }
+        event.finish("mapped", bufLen);
+        if (METRICS) {
+            metrics.bytesRead += bufLen;
+        }
+        return true;
     }
 
-    public BigInteger nextBigInteger() {
-        return new BigInteger(next());
-    }
+    /**
+     * Single-producer/single-consumer ring of reusable slots. The FastIO-Reader
+     * thread fills slots ahead of the parser and publishes them by advancing
+     * tail; the parser hands a slot back by advancing head. Neither side locks,
+     * and a side only parks when the ring is empty or full.
+     */
+    private abstract static class SlotRing implements Runnable {
+        private final int[] lengths;
+        private final int mask;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private final Thread producer;
+        private volatile Thread parkedConsumer;
+        private volatile boolean parkedProducer;
+        private volatile boolean stopped;
+        private volatile IOException failure;
+        private boolean holding;
+        // Consumer-side metrics: slots found ready, slots waited for, time waited
+        long hits, misses, waitNanos;
+        private final String contents;
 
-    public char nextChar() {
-        return next().charAt(0);
-    }
+        SlotRing(int slotCount, String contents) {
+            this.contents = contents;
+            this.lengths = new int[slotCount];
+            this.mask = slotCount - 1;
+            this.producer = new Thread(this, "FastIO-Reader");
+            producer.setDaemon(true);
+        }
 
-    // Enhanced array reading methods - handles variable sizes
-    public int[] nextIntArray(int n) {
-        int[] arr = new int[n];
-        for (int i = 0; i < n; i++) {
-            arr[i] = nextInt();
+        // Called once the subclass has set up its slots
+        final void start() {
+            producer.start();
         }
-        return arr;
-    }
 
-    public long[] nextLongArray(int n) {
-        long[] arr = new long[n];
-        for (int i = 0; i < n; i++) {
-            arr[i] = nextLong();
+        // Fills a slot on the FastIO-Reader thread; returns its length, or -1 at end of input
+        abstract int produce(int slot) throws IOException;
+
+        @Override
+        public void run() {
+            long t = 0;
+            while (!stopped) {
+                while (t - head.get() == lengths.length) {
+                    parkedProducer = true;
+                    if (t - head.get() == lengths.length && !stopped) {
+                        LockSupport.park(this);
+                    }
+                    parkedProducer = false;
+                    if (stopped)
+                        return;
+                }
+                int slot = (int) t & mask;
+                int n;
+                try {
+                    n = produce(slot);
+                } catch (IOException e) {
+                    if (!stopped) {
+                        failure = e;
+                    }
+                    n = -1;
+                }
+                lengths[slot] = n;
+                tail.set(++t);
+                Thread consumer = parkedConsumer;
+                if (consumer != null) {
+                    LockSupport.unpark(consumer);
+                }
+                if (n < 0)
+                    return;
+            }
         }
-        return arr;
-    }
 
-    public double[] nextDoubleArray(int n) {
-        double[] arr = new double[n];
-        for (int i = 0; i < n; i++) {
-            arr[i] = nextDouble();
+        // Releases the slot being parsed and waits for the next one;
+        // returns its length, or -1 at end of input
+        int next() {
+            long h = head.get();
+            if (holding) {
+                holding = false;
+                head.set(++h);
+                if (parkedProducer) {
+                    LockSupport.unpark(producer);
+                }
+            }
+            if (tail.get() == h) {
+                long waitStart = METRICS ? System.nanoTime() : 0;
+                PrefetchWaitEvent event = new PrefetchWaitEvent();
+                event.begin();
+                Thread self = Thread.currentThread();
+                for (int spins = 0; tail.get() == h; spins++) {
+                    if (spins < 128) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    parkedConsumer = self;
+                    if (tail.get() == h) {
+                        LockSupport.park(this);
+                    }
+                    parkedConsumer = null;
+                    if (Thread.interrupted()) {
+                        self.interrupt();
+                        throw new UncheckedIOException("Read operation interrupted",
+                                new InterruptedIOException());
+                    }
+                }
+                event.finish(contents);
+                if (METRICS) {
+                    misses++;
+                    waitNanos += System.nanoTime() - waitStart;
+                }
+            } else if (METRICS) {
+                hits++;
+            }
+            int n = lengths[(int) h & mask];
+            if (n < 0) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Failed to read input", failure);
+                }
+                return -1;
+            }
+            holding = true;
+            return n;
         }
-        return arr;
-    }
 
-    public String[] nextStringArray(int n) {
-        String[] arr = new String[n];
-        for (int i = 0; i < n; i++) {
-            arr[i] = next();
+        final int currentSlot() {
+            return (int) head.get() & mask;
+        }
+
+        void stop() {
+            stopped = true;
+            LockSupport.unpark(producer);
         }
-        return arr;
     }
 
-    // Variable-size array reading - reads until end of input or line
-    public List<Integer> nextIntList() {
-        List<Integer> list = new ArrayList<>();
-        String line = nextLine();
-        if (line != null && !line.trim().isEmpty()) {
-            StringTokenizer tokens = new StringTokenizer(line);
-            while (tokens.hasMoreTokens()) {
-                list.add(Integer.parseInt(tokens.nextToken()));
+    // Raw input chunks read ahead of the byte parser
+    private static final class ReadAheadRing extends SlotRing {
+        private final InputStream in;
+        private final ByteBuffer[] slots;
+
+        ReadAheadRing(InputStream in, int slotCount, int chunkSize) {
+            super(slotCount, "chunks");
+            this.in = in;
+            this.slots = new ByteBuffer[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                slots[i] = ByteBuffer.allocate(chunkSize);
             }
+            start();
+        }
+
+        @Override
+        int produce(int slot) throws IOException {
+            RefillEvent event = new RefillEvent();
+            event.begin();
+            byte[] chunk = slots[slot].array();
+            int n;
+            do {
+                n = in.read(chunk, 0, chunk.length);
+            } while (n == 0);
+            event.finish("read-ahead", n);
+            return n;
+        }
+
+        ByteBuffer current() {
+            return slots[currentSlot()];
         }
-        return list;
     }
 
-    public List<Long> nextLongList() {
-        List<Long> list = new ArrayList<>();
-        String line = nextLine();
-        if (line != null && !line.trim().isEmpty()) {
-            StringTokenizer tokens = new StringTokenizer(line);
-            while (tokens.hasMoreTokens()) {
-                list.add(Long.parseLong(tokens.nextToken()));
+    /**
+     * Tokens read, split and parsed on the FastIO-Reader thread, in batches of
+     * up to batchSize. A token whose text is exactly a canonical long is stored
+     * as that value with a null raw entry; anything else (words, decimals,
+     * overflowing or non-canonical numbers such as +5, 007 or -0) keeps its text.
+     */
+    private static final class TokenPipeline extends SlotRing {
+        private final InputStream in;
+        private final Charset charset;
+        private final int batchSize;
+        private final long[][] values;
+        private final String[][] raw;
+        // Producer-side tokenizer state
+        private final byte[] chunk = new byte[BUFFER_SIZE];
+        private int pos, len;
+        private byte[] token = new byte[64];
+        // Written by the FastIO-Reader thread only
+        volatile long bytesRead;
+
+        TokenPipeline(InputStream in, Charset charset, int slotCount, int batchSize) {
+            super(slotCount, "tokens");
+            this.in = in;
+            this.charset = charset;
+            this.batchSize = batchSize;
+            this.values = new long[slotCount][batchSize];
+            this.raw = new String[slotCount][batchSize];
+            start();
+        }
+
+        private boolean refill() throws IOException {
+            RefillEvent event = new RefillEvent();
+            event.begin();
+            int n;
+            do {
+                n = in.read(chunk, 0, chunk.length);
+            } while (n == 0);
+            event.finish("read-ahead", n);
+            pos = 0;
+            len = Math.max(n, 0);
+            if (METRICS) {
+                bytesRead = bytesRead + len;
             }
+            return n > 0;
         }
-        return list;
-    }
 
-    public List<String> nextStringList() {
-        List<String> list = new ArrayList<>();
-        String line = nextLine();
-        if (line != null && !line.trim().isEmpty()) {
-            StringTokenizer tokens = new StringTokenizer(line);
-            while (tokens.hasMoreTokens()) {
-                list.add(tokens.nextToken());
+        @Override
+        int produce(int slot) throws IOException {
+            long[] v = values[slot];
+            String[] r = raw[slot];
+            int count = 0;
+            while (count < batchSize) {
+                while (true) {
+                    if (pos == len && !refill()) {
+                        return count > 0 ? count : -1;
+                    }
+                    if ((chunk[pos] & 0xFF) > ' ')
+                        break;
+                    pos++;
+                }
+                int start = pos;
+                while (pos < len && (chunk[pos] & 0xFF) > ' ') {
+                    pos++;
+                }
+                if (pos < len) {
+                    store(chunk, start, pos, v, r, count++);
+                    continue;
+                }
+                // The token runs into the next chunk: gather it first
+                int tokenLen = 0;
+                do {
+                    int part = pos - start;
+                    if (tokenLen + part > token.length) {
+                        token = Arrays.copyOf(token, Math.max(token.length * 2, tokenLen + part));
+                    }
+                    System.arraycopy(chunk, start, token, tokenLen, part);
+                    tokenLen += part;
+                    if (!refill())
+                        break;
+                    start = 0;
+                    while (pos < len && (chunk[pos] & 0xFF) > ' ') {
+                        pos++;
+                    }
+                } while (pos == len);
+                if (pos < len) {
+                    int part = pos - start;
+                    if (tokenLen + part > token.length) {
+                        token = Arrays.copyOf(token, tokenLen + part);
+                    }
+                    System.arraycopy(chunk, start, token, tokenLen, part);
+                    tokenLen += part;
+                }
+                store(token, 0, tokenLen, v, r, count++);
             }
+            return count;
+        }
+
+        private void store(byte[] b, int from, int to, long[] v, String[] r, int i) {
+            int p = from;
+            boolean negative = b[p] == '-';
+            if (negative) {
+                p++;
+            }
+            // Canonical means the text is what Long.toString would print,
+            // so next() can rebuild it from the value
+            boolean canonical = p < to && to - p <= 19 && (b[p] != '0' || (to - p == 1 && !negative));
+            long result = 0;
+            for (; canonical && p < to; p++) {
+                int d = b[p] - '0';
+                if (d < 0 || d > 9 || result < Long.MIN_VALUE / 10 || (result *= 10) < Long.MIN_VALUE + d) {
+                    canonical = false;
+                } else {
+                    result -= d;
+                }
+            }
+            if (canonical && (negative || result != Long.MIN_VALUE)) {
+                v[i] = negative ? result : -result;
+                r[i] = null;
+            } else {
+                r[i] = new String(b, from, to - from, charset);
+            }
+        }
+
+        long[] values() {
+            return values[currentSlot()];
+        }
+
+        String[] raw() {
+            return raw[currentSlot()];
         }
-        return list;
     }
 
-    // USACO-style array reading without requiring dimensions
-    // Arrays are separated by newlines, matrices are always last parameter
+    // Byte-level primitives: unsigned byte value, or -1 at end of input
+    private int peekByte() {
+        if (bufPtr == bufLen && !fill())
+            return -1;
+        return buf.get(bufPtr) & 0xFF;
+    }
 
-    /**
-     * Reads all remaining integers from current line as an array
-     * Perfect for when array size is not predetermined
-     */
-    public int[] readIntArray() {
-        List<Integer> list = nextIntList();
-        return list.stream().mapToInt(Integer::intValue).toArray();
+    private int skipBlanks() {
+        int c;
+        while ((c = peekByte()) >= 0 && c <= ' ') {
+            bufPtr++;
+        }
+        return c;
     }
 
-    /**
-     * Reads all remaining longs from current line as an array
-     */
-    public long[] readLongArray() {
-        List<Long> list = nextLongList();
-        return list.stream().mapToLong(Long::longValue).toArray();
+    private void appendScratch(int len, int c) {
+        if (len == scratch.length) {
+            scratch = Arrays.copyOf(scratch, len << 1);
+        }
+        scratch[len] = (byte) c;
     }
 
-    /**
-     * Reads all remaining doubles from current line as an array
-     */
-    public double[] readDoubleArray() {
-        List<Double> list = new ArrayList<>();
-        String line = nextLine();
-        if (line != null && !line.trim().isEmpty()) {
-            StringTokenizer tokens = new StringTokenizer(line);
-            while (tokens.hasMoreTokens()) {
-                list.add(Double.parseDouble(tokens.nextToken()));
-            }
+    // Consumes the rest of a malformed token so the error names what was read
+    private NumberFormatException malformed(String message) {
+        int len = 0;
+        int c;
+        while ((c = peekByte()) > ' ') {
+            appendScratch(len++, c);
+            bufPtr++;
         }
-        return list.stream().mapToDouble(Double::doubleValue).toArray();
+        midLine = true;
+        return new NumberFormatException(message + " near: \""
+                + new String(scratch, 0, len, charset) + "\"");
     }
 
-    /**
-     * Reads all remaining strings from current line as an array
-     */
-    public String[] readStringArray() {
-        List<String> list = nextStringList();
-        return list.toArray(new String[0]);
+    // Prefetch.PARSE: index of the next token in the current batch
+    private int pipelineToken() {
+        if (batchPos == batchLen && !nextBatch()) {
+            throw new NoSuchElementException("No more input available");
+        }
+        return batchPos++;
     }
 
-    /**
-     * Reads a 2D matrix until end of input (no dimensions required)
-     * Perfect for USACO where matrix is always the last parameter
-     */
-    public int[][] readIntMatrix() {
-        List<int[]> rows = new ArrayList<>();
+    private boolean nextBatch() {
+        if (closed.get()) {
+            throw new IllegalStateException("FastIO is closed");
+        }
+        int n = pipeline.next();
+        batchPos = 0;
+        batchLen = Math.max(n, 0);
+        batchValues = pipeline.values();
+        batchRaw = pipeline.raw();
+        return n > 0;
+    }
 
+    private static long parseRawLong(String text) {
         try {
-            while (hasNext()) {
-                String line = nextLine();
-                if (line == null || line.trim().isEmpty()) {
-                    break;
-                }
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            String problem = text.matches("[+-]?[0-9]+") ? "Value out of long range" : "Malformed long";
+            throw new NumberFormatException(problem + " near: \"" + text + "\"");
+        }
+    }
 
-                // Parse the line into integers
-                StringTokenizer tokens = new StringTokenizer(line);
-                List<Integer> rowData = new ArrayList<>();
-                while (tokens.hasMoreTokens()) {
-                    rowData.add(Integer.parseInt(tokens.nextToken()));
-                }
+    private static UnsupportedOperationException pipelineUnsupported() {
+        return new UnsupportedOperationException("Only token reads are available with Prefetch.PARSE");
+    }
 
-                if (!rowData.isEmpty()) {
-                    int[] row = rowData.stream().mapToInt(Integer::intValue).toArray();
-                    rows.add(row);
-                }
-            }
-        } catch (Exception e) {
-            // End of input reached or parsing error
+    // For readers that stop at the first failed line read, which with PARSE
+    // would otherwise pass for end of input
+    private void requireLineReads() {
+        if (pipeline != null) {
+            throw pipelineUnsupported();
         }
-
-        return rows.toArray(new int[0][]);
     }
 
-    /**
-     * Reads a 2D matrix of longs until end of input
-     */
-    public long[][] readLongMatrix() {
-        List<long[]> rows = new ArrayList<>();
+    // Basic input methods
+    public String next() {
+        if (METRICS) {
+            metrics.others++;
+        }
+        if (pipeline != null) {
+            int i = pipelineToken();
+            return batchRaw[i] != null ? batchRaw[i] : Long.toString(batchValues[i]);
+        }
+        int c = skipBlanks();
+        if (c < 0) {
+            throw new NoSuchElementException("No more input available");
+        }
+        int len = 0;
+        do {
+            appendScratch(len++, c);
+            bufPtr++;
+        } while ((c = peekByte()) > ' ');
+        midLine = true;
+        return new String(scratch, 0, len, charset);
+    }
 
-        try {
-            while (hasNext()) {
-                String line = nextLine();
-                if (line == null || line.trim().isEmpty()) {
-                    break;
-                }
+    // The next token as a view of the input bytes, in a Token owned by this
+    // FastIO; see Token for how long it stays valid
+    public Token nextToken() {
+        return readToken(token, false);
+    }
 
-                StringTokenizer tokens = new StringTokenizer(line);
-                List<Long> rowData = new ArrayList<>();
-                while (tokens.hasMoreTokens()) {
-                    rowData.add(Long.parseLong(tokens.nextToken()));
-                }
+    // The next token copied into into's own reused array, so that several
+    // tokens can be held at once without a String each
+    public Token nextToken(Token into) {
+        return readToken(into, true);
+    }
 
-                if (!rowData.isEmpty()) {
-                    long[] row = rowData.stream().mapToLong(Long::longValue).toArray();
-                    rows.add(row);
+    private Token readToken(Token into, boolean own) {
+        if (METRICS) {
+            metrics.others++;
+        }
+        if (pipeline != null) {
+            int i = pipelineToken();
+            into.setCopy(batchRaw[i] != null ? batchRaw[i] : Long.toString(batchValues[i]), charset);
+            return into;
+        }
+        int c = skipBlanks();
+        if (c < 0) {
+            throw new NoSuchElementException("No more input available");
+        }
+        // Find the end without consuming, pulling more input in behind the
+        // token when it runs past the buffer so that it stays contiguous
+        int p = bufPtr + 1;
+        for (;;) {
+            for (; p < bufLen; p++) {
+                if ((buf.get(p) & 0xFF) <= ' ') {
+                    break;
                 }
             }
-        } catch (Exception e) {
-            // End of input reached
+            if (p < bufLen) {
+                break;
+            }
+            int scanned = p - bufPtr;
+            boolean more = extendBuffer();
+            p = bufPtr + scanned;
+            if (!more) {
+                break;
+            }
         }
-
-        return rows.toArray(new long[0][]);
+        if (own) {
+            into.setCopy(buf, bufPtr, p - bufPtr, charset);
+        } else {
+            into.set(buf, bufPtr, p - bufPtr, charset);
+        }
+        bufPtr = p;
+        midLine = true;
+        return into;
     }
 
     /**
-     * Reads a character matrix until end of input
-     * Each line becomes a row of characters
+     * Reads the next line. After a token read, blanks left on the current line
+     * are skipped; tokens left on it are kept for the next token read, and the
+     * following line is returned, as the BufferedReader-based FastIO did
      */
-    public char[][] readCharMatrix() {
-        List<char[]> rows = new ArrayList<>();
+    public String nextLine() {
+        if (closed.get()) {
+            throw new IllegalStateException("FastIO is closed");
+        }
+        if (!beginLine()) {
+            return null;
+        }
 
-        try {
-            while (hasNext()) {
-                String line = nextLine();
-                if (line == null) {
-                    break;
+        int c;
+        int len = 0;
+        while ((c = peekByte()) >= 0) {
+            bufPtr++;
+            if (c == '\n') {
+                break;
+            }
+            appendScratch(len++, c);
+        }
+        endLine();
+        if (len > 0 && scratch[len - 1] == '\r') {
+            len--;
+        }
+        return new String(scratch, 0, len, charset);
+    }
+
+    // Positions the reader where nextLine() would start; false at end of input
+    private boolean beginLine() {
+        if (midLine) {
+            midLine = false;
+            int c;
+            while ((c = peekByte()) == ' ' || c == '\t' || c == '\r') {
+                bufPtr++;
+            }
+            if (c < 0) {
+                return false;
+            }
+            if (c == '\n') {
+                bufPtr++;
+            } else {
+                carryRestOfLine();
+            }
+        }
+        if (peekByte() < 0) {
+            endLine();
+            return false;
+        }
+        if (METRICS) {
+            metrics.lines++;
+        }
+        return true;
+    }
+
+    private void carryRestOfLine() {
+        int len = 0;
+        int c;
+        while ((c = peekByte()) >= 0) {
+            bufPtr++;
+            if (c == '\n') {
+                break;
+            }
+            if (len + 1 == carried.length) {
+                carried = Arrays.copyOf(carried, len << 1);
+            }
+            carried[len++] = (byte) c;
+        }
+        carried[len++] = '\n';
+        carriedLen = len;
+    }
+
+    // Called once a line read is done: tokens carried past it go back in
+    // front of the input, and the reader is again mid-line on them
+    private void endLine() {
+        if (carriedLen == 0) {
+            return;
+        }
+        int rest = heldBuf != null ? bufLen - bufPtr : 0;
+        byte[] bytes = Arrays.copyOf(carried, carriedLen + rest);
+        if (heldBuf != null) {
+            buf.get(bufPtr, bytes, carriedLen, rest);
+        } else {
+            heldBuf = buf;
+            heldPtr = bufPtr;
+            heldLen = bufLen;
+        }
+        buf = ByteBuffer.wrap(bytes);
+        bufPtr = 0;
+        bufLen = bytes.length;
+        carriedLen = 0;
+        midLine = true;
+    }
+
+    // Skips blanks up to the next token on the current line; returns false,
+    // having consumed the line break, when the line has no tokens left
+    private boolean nextTokenInLine() {
+        int c;
+        while ((c = peekByte()) >= 0 && c <= ' ' && c != '\n') {
+            bufPtr++;
+        }
+        if (c == '\n') {
+            bufPtr++;
+            midLine = false;
+            return false;
+        }
+        return c >= 0;
+    }
+
+    // With metrics on, every METRICS_SAMPLE_RATE-th number read is timed
+    public int nextInt() {
+        if (METRICS && metrics.sampleInt()) {
+            long start = System.nanoTime();
+            int value = readInt();
+            metrics.parsed(start);
+            return value;
+        }
+        return readInt();
+    }
+
+    public long nextLong() {
+        if (METRICS && metrics.sampleLong()) {
+            long start = System.nanoTime();
+            long value = readLong();
+            metrics.parsed(start);
+            return value;
+        }
+        return readLong();
+    }
+
+    public double nextDouble() {
+        if (METRICS && metrics.sampleDouble()) {
+            long start = System.nanoTime();
+            double value = readDouble();
+            metrics.parsed(start);
+            return value;
+        }
+        return readDouble();
+    }
+
+    private int readInt() {
+        long value = readLong();
+        if (value != (int) value) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    private long readLong() {
+        if (pipeline != null) {
+            int i = pipelineToken();
+            return batchRaw[i] == null ? batchValues[i] : parseRawLong(batchRaw[i]);
+        }
+        int c = skipBlanks();
+        if (c < 0) {
+            throw new NoSuchElementException("No more input available");
+        }
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            bufPtr++;
+            c = peekByte();
+        }
+        if (c < '0' || c > '9') {
+            throw malformed("Malformed long");
+        }
+        // Accumulate negatively like Long.parseLong so Long.MIN_VALUE fits
+        long result = 0;
+        do {
+            int digit = c - '0';
+            if (result < Long.MIN_VALUE / 10 || (result *= 10) < Long.MIN_VALUE + digit) {
+                throw malformed("Value out of long range");
+            }
+            result -= digit;
+            bufPtr++;
+        } while ((c = peekByte()) >= '0' && c <= '9');
+        if (c > ' ') {
+            throw malformed("Malformed long");
+        }
+        if (!negative && result == Long.MIN_VALUE) {
+            throw malformed("Value out of long range");
+        }
+        midLine = true;
+        return negative ? result : -result;
+    }
+
+    // Powers of ten that are exact doubles, for the fast decimal path
+    private static final double[] EXACT_POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Parses a decimal straight from the input bytes. When the significand has
+     * at most 15 digits and the power of ten is exact, one IEEE multiply or
+     * divide gives the correctly rounded result; everything else (long
+     * significands, extreme exponents, NaN, Infinity, hex, suffixes) is handed
+     * to Double.parseDouble, so results are always bit-identical to it
+     */
+    private double readDouble() {
+        if (pipeline != null) {
+            // A canonical long converts with the same rounding as parseDouble
+            int i = pipelineToken();
+            return batchRaw[i] == null ? batchValues[i] : Double.parseDouble(batchRaw[i]);
+        }
+        int c = skipBlanks();
+        if (c < 0) {
+            throw new NoSuchElementException("No more input available");
+        }
+        int len = 0;
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            appendScratch(len++, c);
+            bufPtr++;
+            c = peekByte();
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean sawDigit = false;
+        boolean simple = true;
+        while (c >= '0' && c <= '9') {
+            appendScratch(len++, c);
+            bufPtr++;
+            sawDigit = true;
+            if (mantissa != 0 || c != '0') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (++digits > 18) {
+                    simple = false;
                 }
-                rows.add(line.toCharArray());
             }
-        } catch (Exception e) {
-            // End of input reached
+            c = peekByte();
+        }
+        if (c == '.') {
+            appendScratch(len++, c);
+            bufPtr++;
+            c = peekByte();
+            while (c >= '0' && c <= '9') {
+                appendScratch(len++, c);
+                bufPtr++;
+                sawDigit = true;
+                scale--;
+                if (mantissa != 0 || c != '0') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (++digits > 18) {
+                        simple = false;
+                    }
+                }
+                c = peekByte();
+            }
         }
+        if (!sawDigit) {
+            simple = false;
+        }
+        if (simple && (c == 'e' || c == 'E')) {
+            appendScratch(len++, c);
+            bufPtr++;
+            c = peekByte();
+            boolean negativeExp = c == '-';
+            if (negativeExp || c == '+') {
+                appendScratch(len++, c);
+                bufPtr++;
+                c = peekByte();
+            }
+            int exp = 0;
+            boolean sawExpDigit = false;
+            while (c >= '0' && c <= '9') {
+                appendScratch(len++, c);
+                bufPtr++;
+                sawExpDigit = true;
+                if (exp < 100000) {
+                    exp = exp * 10 + (c - '0');
+                }
+                c = peekByte();
+            }
+            simple = sawExpDigit;
+            scale += negativeExp ? -exp : exp;
+        }
+        if (c > ' ') {
+            simple = false;
+            do {
+                appendScratch(len++, c);
+                bufPtr++;
+            } while ((c = peekByte()) > ' ');
+        }
+        midLine = true;
 
-        return rows.toArray(new char[0][]);
+        if (simple) {
+            if (mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            if (digits <= 15) {
+                double value = mantissa;
+                if (scale < 0 && scale >= -22) {
+                    value /= EXACT_POW10[-scale];
+                    return negative ? -value : value;
+                }
+                if (scale >= 0 && scale <= 22 + 15 - digits) {
+                    // Fold the excess power into the significand while it stays exact
+                    if (scale > 22) {
+                        value *= EXACT_POW10[scale - 22];
+                        scale = 22;
+                    }
+                    value *= EXACT_POW10[scale];
+                    return negative ? -value : value;
+                }
+            }
+        }
+        return Double.parseDouble(new String(scratch, 0, len, charset));
     }
 
     /**
-     * Reads a string matrix until end of input
+     * Reads a decimal integer of any length without new BigInteger(String),
+     * which is quadratic in the digit count: digits are gathered straight from
+     * the input into 18-digit longs, which are then combined pairwise, so the
+     * large multiplications run on balanced halves (Karatsuba / Toom-Cook)
      */
-    public String[][] readStringMatrix() {
-        List<String[]> rows = new ArrayList<>();
+    public BigInteger nextBigInteger() {
+        if (METRICS) {
+            metrics.others++;
+        }
+        if (pipeline != null) {
+            int i = pipelineToken();
+            return batchRaw[i] == null ? BigInteger.valueOf(batchValues[i]) : parseRawBigInteger(batchRaw[i]);
+        }
+        int c = skipBlanks();
+        if (c < 0) {
+            throw new NoSuchElementException("No more input available");
+        }
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            bufPtr++;
+            c = peekByte();
+        }
+        if (c < '0' || c > '9') {
+            throw malformed("Malformed BigInteger");
+        }
+        LongList chunks = bigChunks;
+        chunks.clear();
+        long chunk = 0;
+        int digits = 0;
+        do {
+            chunk = chunk * 10 + (c - '0');
+            bufPtr++;
+            if (++digits == BIG_CHUNK_DIGITS) {
+                chunks.add(chunk);
+                chunk = 0;
+                digits = 0;
+            }
+        } while ((c = peekByte()) >= '0' && c <= '9');
+        if (c > ' ') {
+            throw malformed("Malformed BigInteger");
+        }
+        midLine = true;
+        BigInteger value = fromChunks(chunks, chunk, digits);
+        return negative ? value.negate() : value;
+    }
 
-        try {
-            while (hasNext()) {
-                String line = nextLine();
-                if (line == null || line.trim().isEmpty()) {
-                    break;
+    private static BigInteger parseRawBigInteger(String text) {
+        int start = text.charAt(0) == '-' || text.charAt(0) == '+' ? 1 : 0;
+        LongList chunks = new LongList();
+        long chunk = 0;
+        int digits = 0;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Malformed BigInteger near: \"" + text + "\"");
+            }
+            chunk = chunk * 10 + (c - '0');
+            if (++digits == BIG_CHUNK_DIGITS) {
+                chunks.add(chunk);
+                chunk = 0;
+                digits = 0;
+            }
+        }
+        if (start == text.length()) {
+            throw new NumberFormatException("Malformed BigInteger near: \"" + text + "\"");
+        }
+        BigInteger value = fromChunks(chunks, chunk, digits);
+        return text.charAt(0) == '-' ? value.negate() : value;
+    }
+
+    // The full 18-digit chunks, most significant first, followed by the last
+    // digits (fewer than 18) held in tail
+    private static BigInteger fromChunks(LongList chunks, long tail, int tailDigits) {
+        long scale = 1;
+        for (int i = 0; i < tailDigits; i++) {
+            scale *= 10;
+        }
+        if (chunks.isEmpty()) {
+            return BigInteger.valueOf(tail);
+        }
+        BigInteger head = combineChunks(chunks.array(), 0, chunks.size());
+        return tailDigits == 0 ? head : head.multiply(BigInteger.valueOf(scale)).add(BigInteger.valueOf(tail));
+    }
+
+    // Value of chunks[from, to); the low part always spans a power-of-two
+    // count of chunks so its multiplier comes from the shared table
+    private static BigInteger combineChunks(long[] chunks, int from, int to) {
+        int n = to - from;
+        if (n <= 16) {
+            BigInteger value = BigInteger.valueOf(chunks[from]);
+            for (int i = from + 1; i < to; i++) {
+                value = value.multiply(BIG_CHUNK_BASE).add(BigInteger.valueOf(chunks[i]));
+            }
+            return value;
+        }
+        int level = 31 - Integer.numberOfLeadingZeros(n - 1);
+        int mid = to - (1 << level);
+        return combineChunks(chunks, from, mid).multiply(chunkPower(level)).add(combineChunks(chunks, mid, to));
+    }
+
+    // 10^(18 * 2^level), squared up from 10^18 on first use
+    private static BigInteger chunkPower(int level) {
+        BigInteger[] powers = chunkPowers;
+        if (level < powers.length) {
+            return powers[level];
+        }
+        synchronized (FastIO.class) {
+            powers = chunkPowers;
+            if (level >= powers.length) {
+                int old = powers.length;
+                powers = Arrays.copyOf(powers, level + 1);
+                for (int i = old; i <= level; i++) {
+                    powers[i] = powers[i - 1].multiply(powers[i - 1]);
                 }
+                chunkPowers = powers;
+            }
+            return powers[level];
+        }
+    }
+
+    public char nextChar() {
+        if (pipeline != null) {
+            return next().charAt(0);
+        }
+        int c = skipBlanks();
+        if (METRICS && c >= 0 && c < 0x80) {
+            metrics.others++;
+        }
+        if (c < 0 || c >= 0x80) {
+            return next().charAt(0);
+        }
+        do {
+            bufPtr++;
+        } while (peekByte() > ' ');
+        midLine = true;
+        return (char) c;
+    }
+
+    // Enhanced array reading methods - handles variable sizes
+    public int[] nextIntArray(int n) {
+        int[] arr = new int[n];
+        nextIntArray(arr, 0, n);
+        return arr;
+    }
+
+    public long[] nextLongArray(int n) {
+        long[] arr = new long[n];
+        nextLongArray(arr, 0, n);
+        return arr;
+    }
 
-                StringTokenizer tokens = new StringTokenizer(line);
-                List<String> rowData = new ArrayList<>();
-                while (tokens.hasMoreTokens()) {
-                    rowData.add(tokens.nextToken());
+    public double[] nextDoubleArray(int n) {
+        double[] arr = new double[n];
+        nextDoubleArray(arr, 0, n);
+        return arr;
+    }
+
+    /**
+     * Fills dst[off, off + len) with the next len integers without allocating.
+     * Tokens lying wholly inside the current chunk are parsed in a local loop;
+     * anything crossing a chunk boundary or out of the ordinary goes through readInt()
+     */
+    public void nextIntArray(int[] dst, int off, int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        if (METRICS) {
+            metrics.ints += len;
+        }
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            ByteBuffer b = buf;
+            int p = bufPtr, lim = bufLen;
+            for (; i < end; i++) {
+                while (p < lim && (b.get(p) & 0xFF) <= ' ') {
+                    p++;
                 }
+                int start = p;
+                boolean negative = p < lim && b.get(p) == '-';
+                if (negative) {
+                    p++;
+                }
+                long value = 0;
+                int digits = 0;
+                int c;
+                while (p < lim && (c = b.get(p) - '0') >= 0 && c <= 9) {
+                    value = value * 10 + c;
+                    digits++;
+                    p++;
+                }
+                if (negative) {
+                    value = -value;
+                }
+                if (digits == 0 || digits > 18 || p == lim || (b.get(p) & 0xFF) > ' ' || value != (int) value) {
+                    p = start;
+                    break;
+                }
+                dst[i] = (int) value;
+            }
+            bufPtr = p;
+            if (i < end) {
+                dst[i++] = readInt();
+            } else {
+                midLine = true;
+            }
+        }
+    }
 
-                if (!rowData.isEmpty()) {
-                    rows.add(rowData.toArray(new String[0]));
+    /**
+     * Fills dst[off, off + len) with the next len longs without allocating
+     */
+    public void nextLongArray(long[] dst, int off, int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        if (METRICS) {
+            metrics.longs += len;
+        }
+        int end = off + len;
+        int i = off;
+        while (i < end) {
+            ByteBuffer b = buf;
+            int p = bufPtr, lim = bufLen;
+            for (; i < end; i++) {
+                while (p < lim && (b.get(p) & 0xFF) <= ' ') {
+                    p++;
+                }
+                int start = p;
+                boolean negative = p < lim && b.get(p) == '-';
+                if (negative) {
+                    p++;
+                }
+                long value = 0;
+                int digits = 0;
+                int c;
+                while (p < lim && (c = b.get(p) - '0') >= 0 && c <= 9) {
+                    value = value * 10 + c;
+                    digits++;
+                    p++;
+                }
+                if (digits == 0 || digits > 18 || p == lim || (b.get(p) & 0xFF) > ' ') {
+                    p = start;
+                    break;
                 }
+                dst[i] = negative ? -value : value;
             }
-        } catch (Exception e) {
-            // End of input reached
+            bufPtr = p;
+            if (i < end) {
+                dst[i++] = readLong();
+            } else {
+                midLine = true;
+            }
+        }
+    }
+
+    /**
+     * Fills dst[off, off + len) with the next len doubles
+     */
+    public void nextDoubleArray(double[] dst, int off, int len) {
+        Objects.checkFromIndexSize(off, len, dst.length);
+        for (int i = off, end = off + len; i < end; i++) {
+            dst[i] = nextDouble();
+        }
+    }
+
+    public String[] nextStringArray(int n) {
+        String[] arr = new String[n];
+        for (int i = 0; i < n; i++) {
+            arr[i] = next();
+        }
+        return arr;
+    }
+
+    // Growable primitive buffers, used in place of List<Integer> etc. so that
+    // variable-size reads never box
+    public static final class IntList {
+        private int[] data;
+        private int size;
+
+        public IntList() {
+            this(16);
+        }
+
+        public IntList(int capacity) {
+            data = new int[Math.max(capacity, 1)];
+        }
+
+        public void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = value;
+        }
+
+        public int get(int index) {
+            Objects.checkIndex(index, size);
+            return data[index];
+        }
+
+        public void set(int index, int value) {
+            Objects.checkIndex(index, size);
+            data[index] = value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        // Backing array, valid up to size(); avoids a copy when the caller
+        // only needs to scan the values
+        public int[] array() {
+            return data;
+        }
+
+        public int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    public static final class LongList {
+        private long[] data;
+        private int size;
+
+        public LongList() {
+            this(16);
+        }
+
+        public LongList(int capacity) {
+            data = new long[Math.max(capacity, 1)];
+        }
+
+        public void add(long value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = value;
+        }
+
+        public long get(int index) {
+            Objects.checkIndex(index, size);
+            return data[index];
+        }
+
+        public void set(int index, long value) {
+            Objects.checkIndex(index, size);
+            data[index] = value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public long[] array() {
+            return data;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    public static final class DoubleList {
+        private double[] data;
+        private int size;
+
+        public DoubleList() {
+            this(16);
+        }
+
+        public DoubleList(int capacity) {
+            data = new double[Math.max(capacity, 1)];
+        }
+
+        public void add(double value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = value;
+        }
+
+        public double get(int index) {
+            Objects.checkIndex(index, size);
+            return data[index];
+        }
+
+        public void set(int index, double value) {
+            Objects.checkIndex(index, size);
+            data[index] = value;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public void clear() {
+            size = 0;
+        }
+
+        public double[] array() {
+            return data;
+        }
+
+        public double[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+
+    /**
+     * A token as a view of its bytes in the input buffer, filled by
+     * nextToken() without creating a String. It is overwritten by the next
+     * nextToken() and its bytes are only valid until the next read, so call
+     * toString() to keep one. A Token passed to nextToken(Token) instead
+     * holds its own copy and stays valid until it is refilled. length, charAt, equals, hashCode and compareTo
+     * work on bytes, each taken as one char: for ASCII input they agree with
+     * the String toString() would return
+     */
+    public static final class Token implements CharSequence, Comparable<Token> {
+        private ByteBuffer bytes;
+        private byte[] array; // bytes' backing array, or null for a mapped file
+        private int offset;
+        private int length;
+        private Charset charset = Charset.defaultCharset();
+        // Owned bytes for nextToken(Token) and Prefetch.PARSE tokens, reused across fills
+        private byte[] copy = new byte[32];
+
+        private void set(ByteBuffer bytes, int offset, int length, Charset charset) {
+            this.bytes = bytes;
+            this.array = bytes.hasArray() ? bytes.array() : null;
+            this.offset = bytes.hasArray() ? offset + bytes.arrayOffset() : offset;
+            this.length = length;
+            this.charset = charset;
+        }
+
+        private void setCopy(ByteBuffer src, int offset, int length, Charset charset) {
+            if (length > copy.length) {
+                copy = new byte[Math.max(length, copy.length * 2)];
+            }
+            src.get(offset, copy, 0, length);
+            set(ByteBuffer.wrap(copy), 0, length, charset);
+        }
+
+        private void setCopy(String text, Charset charset) {
+            byte[] encoded = text.getBytes(charset);
+            setCopy(ByteBuffer.wrap(encoded), 0, encoded.length, charset);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        public byte byteAt(int index) {
+            Objects.checkIndex(index, length);
+            return array != null ? array[offset + index] : bytes.get(offset + index);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (byteAt(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Objects.checkFromToIndex(start, end, length);
+            StringBuilder sb = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                sb.append(charAt(i));
+            }
+            return sb;
+        }
+
+        // Compares with any CharSequence (such as a String literal) char by char
+        public boolean contentEquals(CharSequence text) {
+            if (text.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (charAt(i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Token)) return false;
+            Token other = (Token) o;
+            if (other.length != length) return false;
+            if (array != null && other.array != null) {
+                return Arrays.equals(array, offset, offset + length, other.array, other.offset, other.offset + length);
+            }
+            for (int i = 0; i < length; i++) {
+                if (byteAt(i) != other.byteAt(i)) return false;
+            }
+            return true;
+        }
+
+        // Same value as the String's hashCode for ASCII tokens
+        @Override
+        public int hashCode() {
+            int h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + (byteAt(i) & 0xFF);
+            }
+            return h;
+        }
+
+        @Override
+        public int compareTo(Token other) {
+            if (array != null && other.array != null) {
+                return Arrays.compareUnsigned(array, offset, offset + length, other.array, other.offset, other.offset + other.length);
+            }
+            int n = Math.min(length, other.length);
+            for (int i = 0; i < n; i++) {
+                int d = (byteAt(i) & 0xFF) - (other.byteAt(i) & 0xFF);
+                if (d != 0) return d;
+            }
+            return length - other.length;
+        }
+
+        // Decodes the bytes with the FastIO's charset into a String to keep
+        @Override
+        public String toString() {
+            if (array != null) {
+                return new String(array, offset, length, charset);
+            }
+            byte[] out = new byte[length];
+            bytes.get(offset, out);
+            return new String(out, charset);
+        }
+    }
+
+    // Variable-size array reading - reads until end of input or line
+    public List<Integer> nextIntList() {
+        lineInts.clear();
+        readIntLine(lineInts);
+        List<Integer> list = new ArrayList<>(lineInts.size());
+        for (int i = 0; i < lineInts.size(); i++) {
+            list.add(lineInts.get(i));
+        }
+        return list;
+    }
+
+    public List<Long> nextLongList() {
+        lineLongs.clear();
+        readLongLine(lineLongs);
+        List<Long> list = new ArrayList<>(lineLongs.size());
+        for (int i = 0; i < lineLongs.size(); i++) {
+            list.add(lineLongs.get(i));
+        }
+        return list;
+    }
+
+    public List<String> nextStringList() {
+        List<String> list = new ArrayList<>();
+        if (beginLine()) {
+            while (nextTokenInLine()) {
+                list.add(next());
+            }
+            midLine = false;
+            endLine();
+        }
+        return list;
+    }
+
+    /**
+     * Appends the integers of the next line to dst and returns how many were read
+     */
+    public int readIntLine(IntList dst) {
+        int count = 0;
+        if (beginLine()) {
+            while (nextTokenInLine()) {
+                dst.add(nextInt());
+                count++;
+            }
+            midLine = false;
+            endLine();
+        }
+        return count;
+    }
+
+    /**
+     * Appends the longs of the next line to dst and returns how many were read
+     */
+    public int readLongLine(LongList dst) {
+        int count = 0;
+        if (beginLine()) {
+            while (nextTokenInLine()) {
+                dst.add(nextLong());
+                count++;
+            }
+            midLine = false;
+            endLine();
+        }
+        return count;
+    }
+
+    /**
+     * Appends the doubles of the next line to dst and returns how many were read
+     */
+    public int readDoubleLine(DoubleList dst) {
+        int count = 0;
+        if (beginLine()) {
+            while (nextTokenInLine()) {
+                dst.add(nextDouble());
+                count++;
+            }
+            midLine = false;
+            endLine();
+        }
+        return count;
+    }
+
+    /**
+     * Appends every remaining integer in the input to dst and returns how many were read
+     */
+    public int readAllInts(IntList dst) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int count = 0;
+        while (hasNext()) {
+            dst.add(nextInt());
+            count++;
+        }
+        event.finish("readAllInts", count);
+        return count;
+    }
+
+    public int readAllLongs(LongList dst) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int count = 0;
+        while (hasNext()) {
+            dst.add(nextLong());
+            count++;
+        }
+        event.finish("readAllLongs", count);
+        return count;
+    }
+
+    public int readAllDoubles(DoubleList dst) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int count = 0;
+        while (hasNext()) {
+            dst.add(nextDouble());
+            count++;
+        }
+        event.finish("readAllDoubles", count);
+        return count;
+    }
+
+    /**
+     * Reads every remaining integer until end of input
+     */
+    public int[] readAllInts() {
+        IntList list = new IntList(1024);
+        readAllInts(list);
+        return list.toArray();
+    }
+
+    public long[] readAllLongs() {
+        LongList list = new LongList(1024);
+        readAllLongs(list);
+        return list.toArray();
+    }
+
+    public double[] readAllDoubles() {
+        DoubleList list = new DoubleList(1024);
+        readAllDoubles(list);
+        return list.toArray();
+    }
+
+    // USACO-style array reading without requiring dimensions
+    // Arrays are separated by newlines, matrices are always last parameter
+
+    /**
+     * Reads all remaining integers from current line as an array
+     * Perfect for when array size is not predetermined
+     */
+    public int[] readIntArray() {
+        lineInts.clear();
+        readIntLine(lineInts);
+        return lineInts.toArray();
+    }
+
+    /**
+     * Reads all remaining longs from current line as an array
+     */
+    public long[] readLongArray() {
+        lineLongs.clear();
+        readLongLine(lineLongs);
+        return lineLongs.toArray();
+    }
+
+    /**
+     * Reads all remaining doubles from current line as an array
+     */
+    public double[] readDoubleArray() {
+        lineDoubles.clear();
+        readDoubleLine(lineDoubles);
+        return lineDoubles.toArray();
+    }
+
+    /**
+     * Reads all remaining strings from current line as an array
+     */
+    public String[] readStringArray() {
+        List<String> list = nextStringList();
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * Reads a 2D matrix until end of input (no dimensions required)
+     * Perfect for USACO where matrix is always the last parameter
+     */
+    public int[][] readIntMatrix() {
+        requireLineReads();
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<int[]> rows = new ArrayList<>();
+        long elements = 0;
+
+        try {
+            while (hasNext()) {
+                lineInts.clear();
+                int count = readIntLine(lineInts);
+                if (count == 0) {
+                    break;
+                }
+                rows.add(lineInts.toArray());
+                elements += count;
+            }
+        } catch (Exception e) {
+            // End of input reached or parsing error
+        }
+
+        event.finish("readIntMatrix", elements);
+        return rows.toArray(new int[0][]);
+    }
+
+    /**
+     * Reads a 2D matrix of longs until end of input
+     */
+    public long[][] readLongMatrix() {
+        requireLineReads();
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<long[]> rows = new ArrayList<>();
+        long elements = 0;
+
+        try {
+            while (hasNext()) {
+                lineLongs.clear();
+                int count = readLongLine(lineLongs);
+                if (count == 0) {
+                    break;
+                }
+                rows.add(lineLongs.toArray());
+                elements += count;
+            }
+        } catch (Exception e) {
+            // End of input reached
+        }
+
+        event.finish("readLongMatrix", elements);
+        return rows.toArray(new long[0][]);
+    }
+
+    /**
+     * Reads a character matrix until end of input
+     * Each line becomes a row of characters
+     */
+    public char[][] readCharMatrix() {
+        requireLineReads();
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<char[]> rows = new ArrayList<>();
+        long elements = 0;
+
+        try {
+            while (hasNextLine()) {
+                String line = nextLine();
+                if (line == null) {
+                    break;
+                }
+                rows.add(line.toCharArray());
+                elements += line.length();
+            }
+        } catch (Exception e) {
+            // End of input reached
+        }
+
+        event.finish("readCharMatrix", elements);
+        return rows.toArray(new char[0][]);
+    }
+
+    /**
+     * Reads a string matrix until end of input
+     */
+    public String[][] readStringMatrix() {
+        requireLineReads();
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<String[]> rows = new ArrayList<>();
+        long elements = 0;
+
+        try {
+            while (hasNext()) {
+                List<String> rowData = nextStringList();
+                if (rowData.isEmpty()) {
+                    break;
+                }
+                rows.add(rowData.toArray(new String[0]));
+                elements += rowData.size();
+            }
+        } catch (Exception e) {
+            // End of input reached
+        }
+
+        event.finish("readStringMatrix", elements);
+        return rows.toArray(new String[0][]);
+    }
+
+    /**
+     * Reads exactly n lines as a matrix (when you know the number of rows)
+     */
+    public int[][] readIntMatrix(int rows) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int[][] matrix = new int[rows][];
+        long elements = 0;
+        for (int i = 0; i < rows; i++) {
+            matrix[i] = readIntArray();
+            elements += matrix[i].length;
+        }
+        event.finish("readIntMatrix", elements);
+        return matrix;
+    }
+
+    /**
+     * Reads exactly n lines as a long matrix
+     */
+    public long[][] readLongMatrix(int rows) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        long[][] matrix = new long[rows][];
+        long elements = 0;
+        for (int i = 0; i < rows; i++) {
+            matrix[i] = readLongArray();
+            elements += matrix[i].length;
+        }
+        event.finish("readLongMatrix", elements);
+        return matrix;
+    }
+
+    /**
+     * Reads exactly n lines as a character matrix
+     */
+    public char[][] readCharMatrix(int rows) {
+        char[][] matrix = new char[rows][];
+        for (int i = 0; i < rows; i++) {
+            String line = nextLine();
+            matrix[i] = line != null ? line.toCharArray() : new char[0];
+        }
+        return matrix;
+    }
+
+    // 2D Array methods
+    public int[][] nextInt2DArray(int rows, int cols) {
+        int[][] arr = new int[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            nextIntArray(arr[i], 0, cols);
+        }
+        return arr;
+    }
+
+    public long[][] nextLong2DArray(int rows, int cols) {
+        long[][] arr = new long[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            nextLongArray(arr[i], 0, cols);
+        }
+        return arr;
+    }
+
+    public char[][] nextChar2DArray(int rows, int cols) {
+        char[][] arr = new char[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            String line = nextLine();
+            for (int j = 0; j < cols && j < line.length(); j++) {
+                arr[i][j] = line.charAt(j);
+            }
+        }
+        return arr;
+    }
+
+    // Flat row-major grids: one primitive array per grid instead of one per row
+    public static final class IntGrid {
+        public final int rows;
+        public final int cols;
+        public final int[] data;
+
+        public IntGrid(int rows, int cols) {
+            this(rows, cols, new int[Math.multiplyExact(rows, cols)]);
+        }
+
+        public IntGrid(int rows, int cols, int[] data) {
+            if (data.length != rows * cols) {
+                throw new IllegalArgumentException("Expected " + rows * cols + " values, got " + data.length);
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.data = data;
+        }
+
+        public int index(int r, int c) {
+            return r * cols + c;
+        }
+
+        public int get(int r, int c) {
+            return data[r * cols + c];
+        }
+
+        public void set(int r, int c, int value) {
+            data[r * cols + c] = value;
+        }
+    }
+
+    public static final class LongGrid {
+        public final int rows;
+        public final int cols;
+        public final long[] data;
+
+        public LongGrid(int rows, int cols) {
+            this(rows, cols, new long[Math.multiplyExact(rows, cols)]);
+        }
+
+        public LongGrid(int rows, int cols, long[] data) {
+            if (data.length != rows * cols) {
+                throw new IllegalArgumentException("Expected " + rows * cols + " values, got " + data.length);
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.data = data;
+        }
+
+        public int index(int r, int c) {
+            return r * cols + c;
+        }
+
+        public long get(int r, int c) {
+            return data[r * cols + c];
+        }
+
+        public void set(int r, int c, long value) {
+            data[r * cols + c] = value;
+        }
+    }
+
+    // Character grid stored as one byte per cell; input is taken byte-wise,
+    // which covers the ASCII maps USACO problems use
+    public static final class CharGrid {
+        public final int rows;
+        public final int cols;
+        public final byte[] data;
+
+        public CharGrid(int rows, int cols) {
+            this.rows = rows;
+            this.cols = cols;
+            this.data = new byte[Math.multiplyExact(rows, cols)];
+        }
+
+        public int index(int r, int c) {
+            return r * cols + c;
+        }
+
+        public char get(int r, int c) {
+            return (char) (data[r * cols + c] & 0xFF);
+        }
+
+        public void set(int r, int c, char value) {
+            data[r * cols + c] = (byte) value;
+        }
+    }
+
+    public IntGrid nextIntGrid(int rows, int cols) {
+        IntGrid grid = new IntGrid(rows, cols);
+        nextIntArray(grid.data, 0, grid.data.length);
+        return grid;
+    }
+
+    public LongGrid nextLongGrid(int rows, int cols) {
+        LongGrid grid = new LongGrid(rows, cols);
+        nextLongArray(grid.data, 0, grid.data.length);
+        return grid;
+    }
+
+    /**
+     * Reads rows lines of a character map into one flat grid; short lines
+     * leave '\0' cells and characters past cols are skipped, as in nextChar2DArray
+     */
+    public CharGrid nextCharGrid(int rows, int cols) {
+        CharGrid grid = new CharGrid(rows, cols);
+        byte[] data = grid.data;
+        for (int i = 0; i < rows && beginLine(); i++) {
+            int base = i * cols;
+            int j = 0;
+            int c;
+            while ((c = peekByte()) >= 0) {
+                bufPtr++;
+                if (c == '\n') {
+                    break;
+                }
+                if (j < cols && (c != '\r' || !atLineEnd())) {
+                    data[base + j++] = (byte) c;
+                }
+            }
+            endLine();
+        }
+        return grid;
+    }
+
+    // True when the next byte ends the line, so a '\r' just read is a CRLF's
+    private boolean atLineEnd() {
+        int c = peekByte();
+        return c < 0 || c == '\n';
+    }
+
+    /**
+     * Reads a rectangular integer grid until end of input (no dimensions required)
+     */
+    public IntGrid readIntGrid() {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        IntList values = new IntList(1024);
+        int rows = 0;
+        int cols = 0;
+        while (hasNext()) {
+            int count = readIntLine(values);
+            if (count == 0) {
+                break;
+            }
+            if (rows == 0) {
+                cols = count;
+            } else if (count != cols) {
+                throw new InputMismatchException("Row " + rows + " has " + count + " values, expected " + cols);
+            }
+            rows++;
+        }
+        event.finish("readIntGrid", values.size());
+        return new IntGrid(rows, cols, values.toArray());
+    }
+
+    /**
+     * Reads a rectangular long grid until end of input
+     */
+    public LongGrid readLongGrid() {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        LongList values = new LongList(1024);
+        int rows = 0;
+        int cols = 0;
+        while (hasNext()) {
+            int count = readLongLine(values);
+            if (count == 0) {
+                break;
+            }
+            if (rows == 0) {
+                cols = count;
+            } else if (count != cols) {
+                throw new InputMismatchException("Row " + rows + " has " + count + " values, expected " + cols);
+            }
+            rows++;
+        }
+        event.finish("readLongGrid", values.size());
+        return new LongGrid(rows, cols, values.toArray());
+    }
+
+    // Variable-size 2D arrays (common in USACO)
+    public List<List<Integer>> nextInt2DList(int rows) {
+        List<List<Integer>> list = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            list.add(nextIntList());
+        }
+        return list;
+    }
+
+    // Graph input helpers
+    public List<List<Integer>> readAdjacencyList(int n, int m) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<List<Integer>> adj = new ArrayList<>();
+        for (int i = 0; i <= n; i++) {
+            adj.add(new ArrayList<>());
+        }
+        for (int i = 0; i < m; i++) {
+            int u = nextInt();
+            int v = nextInt();
+            adj.get(u).add(v);
+            adj.get(v).add(u);
+        }
+        event.finish("readAdjacencyList", m);
+        return adj;
+    }
+
+    public List<List<int[]>> readWeightedAdjacencyList(int n, int m) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        List<List<int[]>> adj = new ArrayList<>();
+        for (int i = 0; i <= n; i++) {
+            adj.add(new ArrayList<>());
+        }
+        for (int i = 0; i < m; i++) {
+            int u = nextInt();
+            int v = nextInt();
+            int w = nextInt();
+            adj.get(u).add(new int[] { v, w });
+            adj.get(v).add(new int[] { u, w });
+        }
+        event.finish("readWeightedAdjacencyList", m);
+        return adj;
+    }
+
+    /**
+     * Graph in compressed sparse row form: the arcs leaving u are
+     * targets[offsets[u]] .. targets[offsets[u + 1] - 1], with weights (or
+     * longWeights) alongside; an undirected edge is stored as two arcs
+     */
+    public static final class CsrGraph {
+        public final int n;
+        public final int[] offsets;
+        public final int[] targets;
+        public final int[] weights;
+        public final long[] longWeights;
+
+        CsrGraph(int n, int[] offsets, int[] targets, int[] weights, long[] longWeights) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.longWeights = longWeights;
+        }
+
+        public int start(int u) {
+            return offsets[u];
+        }
+
+        public int end(int u) {
+            return offsets[u + 1];
+        }
+
+        public int degree(int u) {
+            return offsets[u + 1] - offsets[u];
+        }
+    }
+
+    /**
+     * Reads m edges "u v" into a CSR graph on vertices 0..n-1; with oneBased
+     * the input ids 1..n are shifted down by one
+     */
+    public CsrGraph readCsrGraph(int n, int m, boolean directed, boolean oneBased) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int[] edges = new int[Math.multiplyExact(m, 2)];
+        nextIntArray(edges, 0, edges.length);
+        CsrGraph graph = buildCsr(n, m, edges, 2, null, directed, oneBased);
+        event.finish("readCsrGraph", m);
+        return graph;
+    }
+
+    /**
+     * Reads m edges "u v w" with int weights into a CSR graph
+     */
+    public CsrGraph readWeightedCsrGraph(int n, int m, boolean directed, boolean oneBased) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int[] edges = new int[Math.multiplyExact(m, 3)];
+        nextIntArray(edges, 0, edges.length);
+        CsrGraph graph = buildCsr(n, m, edges, 3, null, directed, oneBased);
+        event.finish("readWeightedCsrGraph", m);
+        return graph;
+    }
+
+    /**
+     * Reads m edges "u v w" with long weights into a CSR graph
+     */
+    public CsrGraph readLongWeightedCsrGraph(int n, int m, boolean directed, boolean oneBased) {
+        BulkReadEvent event = new BulkReadEvent();
+        event.begin();
+        int[] edges = new int[Math.multiplyExact(m, 2)];
+        long[] w = new long[m];
+        for (int i = 0; i < m; i++) {
+            edges[2 * i] = nextInt();
+            edges[2 * i + 1] = nextInt();
+            w[i] = nextLong();
+        }
+        CsrGraph graph = buildCsr(n, m, edges, 2, w, directed, oneBased);
+        event.finish("readLongWeightedCsrGraph", m);
+        return graph;
+    }
+
+    // Counting sort of the edge list by source vertex; edges keep input order
+    // within each adjacency range. A stride of 3 carries an int weight per edge
+    private static CsrGraph buildCsr(int n, int m, int[] edges, int stride, long[] w,
+            boolean directed, boolean oneBased) {
+        int base = oneBased ? 1 : 0;
+        for (int i = 0; i < m; i++) {
+            int u = edges[i * stride] -= base;
+            int v = edges[i * stride + 1] -= base;
+            if (u < 0 || u >= n || v < 0 || v >= n) {
+                throw new InputMismatchException("Edge " + (u + base) + " " + (v + base)
+                        + " has a vertex outside " + base + ".." + (n - 1 + base));
+            }
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            offsets[edges[i * stride] + 1]++;
+            if (!directed) {
+                offsets[edges[i * stride + 1] + 1]++;
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+
+        int arcs = offsets[n];
+        int[] targets = new int[arcs];
+        int[] weights = stride == 3 ? new int[arcs] : null;
+        long[] longWeights = w != null ? new long[arcs] : null;
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < m; i++) {
+            int u = edges[i * stride];
+            int v = edges[i * stride + 1];
+            int k = cursor[u]++;
+            targets[k] = v;
+            if (weights != null) {
+                weights[k] = edges[i * stride + 2];
+            } else if (longWeights != null) {
+                longWeights[k] = w[i];
+            }
+            if (!directed) {
+                k = cursor[v]++;
+                targets[k] = u;
+                if (weights != null) {
+                    weights[k] = edges[i * stride + 2];
+                } else if (longWeights != null) {
+                    longWeights[k] = w[i];
+                }
+            }
+        }
+        return new CsrGraph(n, offsets, targets, weights, longWeights);
+    }
+
+    // Parallel parsing of large known-size sections. The calling thread finds
+    // the token boundaries and consumes the section; the digits are then
+    // parsed in slices on the common ForkJoinPool into disjoint ranges of the result
+    private static final int MIN_SLICE_TOKENS = 1 << 14;
+
+    // A run of tokens made contiguous and detached from the read buffer, so it
+    // stays valid while reading carries on. starts[k] is the offset of the
+    // first token of slice k relative to base.
+    private static final class Section {
+        final ByteBuffer data;
+        final int base, end;
+        final int[] starts;
+
+        Section(ByteBuffer data, int base, int end, int[] starts) {
+            this.data = data;
+            this.base = base;
+            this.end = end;
+            this.starts = starts;
+        }
+    }
+
+    private static int sliceTokens(long tokens, int granule) {
+        long slices = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4L,
+                tokens / Math.max(MIN_SLICE_TOKENS, granule)));
+        long granules = (tokens / granule + slices - 1) / slices;
+        return (int) (granules * granule);
+    }
+
+    /**
+     * Consumes the next n tokens, recording where every per-th token starts.
+     * Only token boundaries are examined here; the input is not validated
+     */
+    private Section takeSection(int n, int per) {
+        int[] starts = new int[(n + per - 1) / per];
+        int count = 0, slice = 0;
+        long nextStart = 0;
+        boolean inToken = false;
+        int p = bufPtr;
+        scan:
+        while (true) {
+            ByteBuffer b = buf;
+            int lim = bufLen;
+            while (p < lim) {
+                if (p + 8 <= lim && count + 8 < Math.min(nextStart, n)) {
+                    // Eight bytes at a time while no slice start or section end
+                    // can fall inside: a byte is blank when its high bit is clear
+                    // and its low seven bits are at most ' '
+                    long x = b.getLong(p);
+                    long blank = ~(((x & 0x7F7F7F7F7F7F7F7FL) + 0x5F5F5F5F5F5F5F5FL) | x) & 0x8080808080808080L;
+                    long blankBefore = blank >>> 8 | (inToken ? 0 : 1L << 63);
+                    count += Long.bitCount(~blank & blankBefore & 0x8080808080808080L);
+                    inToken = (blank & 0x80) == 0;
+                    p += 8;
+                    continue;
+                }
+                if ((b.get(p) & 0xFF) <= ' ') {
+                    if (inToken) {
+                        inToken = false;
+                        if (count == n) {
+                            break scan;
+                        }
+                    }
+                } else if (!inToken) {
+                    if (count == nextStart) {
+                        starts[slice++] = p - bufPtr;
+                        nextStart += per;
+                    }
+                    count++;
+                    inToken = true;
+                }
+                p++;
+            }
+            int scanned = p - bufPtr;
+            boolean more = extendBuffer();
+            p = bufPtr + scanned;
+            if (!more) {
+                if (count == n) {
+                    break;
+                }
+                throw new NoSuchElementException("No more input available");
+            }
+        }
+
+        midLine = true;
+        ByteBuffer data = buf;
+        int base = bufPtr;
+        int end = p;
+        if (channel == null) {
+            if (ring == null || buf == lookahead) {
+                // Hand the whole heap buffer over and carry on in a fresh one
+                int rest = bufLen - end;
+                ByteBuffer fresh = ByteBuffer.allocate(Math.max(readSize, rest));
+                System.arraycopy(data.array(), end, fresh.array(), 0, rest);
+                if (ring != null) {
+                    lookahead = fresh;
+                }
+                buf = fresh;
+                bufPtr = 0;
+                bufLen = rest;
+                return new Section(data, base, end, starts);
+            }
+            // The section lies inside a ring slot that is about to be recycled
+            data = ByteBuffer.wrap(Arrays.copyOfRange(data.array(), base, end));
+            base = 0;
+            end = data.capacity();
+        }
+        bufPtr = p;
+        return new Section(data, base, end, starts);
+    }
+
+    /**
+     * Parses len tokens starting at or after p into ints or longs, whichever
+     * is non-null, and returns the position after the last one
+     */
+    private static int parseSlice(ByteBuffer b, int p, int limit, int[] ints, long[] longs, int off, int len) {
+        for (int i = off, end = off + len; i < end; i++) {
+            int c;
+            while ((c = b.get(p) & 0xFF) <= ' ') {
+                p++;
+            }
+            int start = p;
+            boolean negative = c == '-';
+            if (negative || c == '+') {
+                p++;
+            }
+            // Accumulate negatively like nextLong() so Long.MIN_VALUE fits
+            long result = 0;
+            int digits = 0;
+            while (p < limit && (c = b.get(p) - '0') >= 0 && c <= 9) {
+                if (result < Long.MIN_VALUE / 10 || (result *= 10) < Long.MIN_VALUE + c) {
+                    throw malformedAt(b, start, limit, "Value out of long range");
+                }
+                result -= c;
+                digits++;
+                p++;
+            }
+            if (digits == 0 || (p < limit && (b.get(p) & 0xFF) > ' ')) {
+                throw malformedAt(b, start, limit, ints != null ? "Malformed int" : "Malformed long");
+            }
+            if (!negative && result == Long.MIN_VALUE) {
+                throw malformedAt(b, start, limit, "Value out of long range");
+            }
+            long value = negative ? result : -result;
+            if (ints == null) {
+                longs[i] = value;
+            } else if (value == (int) value) {
+                ints[i] = (int) value;
+            } else {
+                throw new NumberFormatException("Value out of int range: " + value);
+            }
+        }
+        return p;
+    }
+
+    private static NumberFormatException malformedAt(ByteBuffer b, int start, int limit, String message) {
+        int end = start;
+        while (end < limit && (b.get(end) & 0xFF) > ' ') {
+            end++;
+        }
+        byte[] token = new byte[end - start];
+        for (int i = 0; i < token.length; i++) {
+            token[i] = b.get(start + i);
+        }
+        return new NumberFormatException(message + " near: \"" + new String(token) + "\"");
+    }
+
+    // Runs one task per slice on the common pool; the future fails with the
+    // error of the earliest failing slice, as a sequential read would have
+    private static <T> CompletableFuture<T> parseSlices(int slices, IntConsumer slice, T result) {
+        CompletableFuture<?>[] parts = new CompletableFuture<?>[slices];
+        for (int k = 0; k < slices; k++) {
+            int index = k;
+            parts[k] = CompletableFuture.runAsync(() -> slice.accept(index), ForkJoinPool.commonPool());
+        }
+        return CompletableFuture.allOf(parts).handle((done, failure) -> {
+            if (failure == null) {
+                return result;
+            }
+            for (CompletableFuture<?> part : parts) {
+                if (part.isCompletedExceptionally()) {
+                    part.join();
+                }
+            }
+            throw new CompletionException(failure);
+        });
+    }
+
+    private static <T> T joinParsed(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the next n ints, parsing them in parallel once the section has
+     * been consumed. Running out of input is thrown right away; malformed
+     * numbers fail the returned future, and the whole section is consumed either way.
+     * With Prefetch.PARSE the reader thread has parsed the values already, so
+     * the future is complete on return
+     */
+    public CompletableFuture<int[]> nextIntArrayAsync(int n) {
+        if (pipeline != null) {
+            return CompletableFuture.completedFuture(nextIntArray(n));
+        }
+        if (METRICS) {
+            metrics.ints += n;
+        }
+        int[] arr = new int[n];
+        if (n == 0) {
+            return CompletableFuture.completedFuture(arr);
+        }
+        int per = sliceTokens(n, 1);
+        Section s = takeSection(n, per);
+        return parseSlices(s.starts.length, k -> parseSlice(s.data, s.base + s.starts[k], s.end,
+                arr, null, k * per, Math.min(per, n - k * per)), arr);
+    }
+
+    public CompletableFuture<long[]> nextLongArrayAsync(int n) {
+        if (pipeline != null) {
+            return CompletableFuture.completedFuture(nextLongArray(n));
+        }
+        if (METRICS) {
+            metrics.longs += n;
+        }
+        long[] arr = new long[n];
+        if (n == 0) {
+            return CompletableFuture.completedFuture(arr);
+        }
+        int per = sliceTokens(n, 1);
+        Section s = takeSection(n, per);
+        return parseSlices(s.starts.length, k -> parseSlice(s.data, s.base + s.starts[k], s.end,
+                null, arr, k * per, Math.min(per, n - k * per)), arr);
+    }
+
+    // Slices are whole runs of rows, so each task fills its own rows
+    public CompletableFuture<int[][]> nextInt2DArrayAsync(int rows, int cols) {
+        if (pipeline != null) {
+            return CompletableFuture.completedFuture(nextInt2DArray(rows, cols));
+        }
+        int[][] arr = new int[rows][cols];
+        int n = Math.multiplyExact(rows, cols);
+        if (METRICS) {
+            metrics.ints += n;
+        }
+        if (n == 0) {
+            return CompletableFuture.completedFuture(arr);
+        }
+        int per = sliceTokens(n, cols);
+        int rowsPer = per / cols;
+        Section s = takeSection(n, per);
+        return parseSlices(s.starts.length, k -> {
+            int p = s.base + s.starts[k];
+            for (int r = k * rowsPer, last = Math.min(rows, r + rowsPer); r < last; r++) {
+                p = parseSlice(s.data, p, s.end, arr[r], null, 0, cols);
+            }
+        }, arr);
+    }
+
+    // Blocking forms of the above, for when the next step needs the values
+    // anyway. Without a spare core the boundary scan is pure overhead, so
+    // these read sequentially instead
+    public int[] nextIntArrayParallel(int n) {
+        if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return nextIntArray(n);
+        }
+        return joinParsed(nextIntArrayAsync(n));
+    }
+
+    public long[] nextLongArrayParallel(int n) {
+        if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return nextLongArray(n);
+        }
+        return joinParsed(nextLongArrayAsync(n));
+    }
+
+    public int[][] nextInt2DArrayParallel(int rows, int cols) {
+        if (ForkJoinPool.getCommonPoolParallelism() < 2) {
+            return nextInt2DArray(rows, cols);
+        }
+        return joinParsed(nextInt2DArrayAsync(rows, cols));
+    }
+
+    // Mathematical utility methods
+    public static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    public static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    public static int lcm(int a, int b) {
+        return a / gcd(a, b) * b;
+    }
+
+    public static long lcm(long a, long b) {
+        return a / gcd(a, b) * b;
+    }
+
+    public static long modPow(long base, long exp, long mod) {
+        long result = 1;
+        base %= mod;
+        while (exp > 0) {
+            if ((exp & 1) == 1) {
+                result = (result * base) % mod;
+            }
+            base = (base * base) % mod;
+            exp >>= 1;
+        }
+        return result;
+    }
+
+    public static long modInv(long a, long mod) {
+        return modPow(a, mod - 2, mod);
+    }
+
+    // Fast integer log base 2 (optimized for competitive programming)
+    public static int log2(int x) {
+        return 31 - Integer.numberOfLeadingZeros(x);
+    }
+
+    public static int log2(long x) {
+        return 63 - Long.numberOfLeadingZeros(x);
+    }
+
+    // Check if power of 2
+    public static boolean isPowerOfTwo(int x) {
+        return x > 0 && (x & (x - 1)) == 0;
+    }
+
+    public static boolean isPowerOfTwo(long x) {
+        return x > 0 && (x & (x - 1)) == 0;
+    }
+
+    public static final Modulus MODULUS = new Modulus(MOD);
+    public static final Modulus MODULUS2 = new Modulus(MOD2);
+
+    // Arithmetic modulo a fixed m in [2, 2^30] (MOD and MOD2 fit). A % by a
+    // field is a hardware divide on every step; here each product is reduced
+    // with Barrett's method (a multiply-high, a multiply and one correction)
+    // and pow runs in Montgomery form when m is odd. Arguments are values
+    // already reduced to [0, m) unless a method says otherwise
+    public static final class Modulus {
+        private final int m;
+        // floor((2^64 - 1) / m): q = multiplyHigh(x, barrett) is floor(x / m)
+        // or one less, for any 0 <= x < 2^63
+        private final long barrett;
+        // -m^-1 mod 2^32 and 2^64 mod m, for Montgomery form with R = 2^32
+        private final int montNegInv;
+        private final long montR2;
+
+        public Modulus(int m) {
+            if (m < 2 || m > 1 << 30) {
+                throw new IllegalArgumentException("Modulus must be in [2, 2^30]: " + m);
+            }
+            this.m = m;
+            this.barrett = Long.divideUnsigned(-1L, m);
+            int inv = m; // Newton's iteration doubles the correct low bits: 3, 6, 12, 24, 48
+            for (int i = 0; i < 4; i++) {
+                inv *= 2 - m * inv;
+            }
+            this.montNegInv = -inv;
+            this.montR2 = (Long.remainderUnsigned(-1L, m) + 1) % m;
+        }
+
+        public int modulus() {
+            return m;
+        }
+
+        // Any long, negative included, to [0, m)
+        public int reduce(long x) {
+            return x >= 0 ? reduceNonNegative(x) : m - 1 - reduceNonNegative(-(x + 1));
+        }
+
+        private int reduceNonNegative(long x) {
+            long r = x - Math.multiplyHigh(x, barrett) * m;
+            return (int) (r >= m ? r - m : r);
+        }
+
+        public int add(int a, int b) {
+            int s = a + b - m;
+            return s + ((s >> 31) & m);
+        }
+
+        public int sub(int a, int b) {
+            int d = a - b;
+            return d + ((d >> 31) & m);
+        }
+
+        public int mul(int a, int b) {
+            return reduceNonNegative((long) a * b);
+        }
+
+        public int pow(int a, long exp) {
+            if (exp < 0) {
+                return pow(inv(a), -exp);
+            }
+            if ((m & 1) == 0) {
+                int result = 1 % m;
+                for (; exp > 0; exp >>= 1) {
+                    if ((exp & 1) == 1) result = mul(result, a);
+                    a = mul(a, a);
+                }
+                return result;
+            }
+            long base = redc(a * montR2);
+            long result = redc(montR2);
+            for (; exp > 0; exp >>= 1) {
+                if ((exp & 1) == 1) result = redc(result * base);
+                base = redc(base * base);
+            }
+            return (int) redc(result);
+        }
+
+        // t * R^-1 mod m for 0 <= t < m * 2^32; m is odd
+        private long redc(long t) {
+            int q = (int) t * montNegInv;
+            long u = (t + (q & 0xFFFFFFFFL) * m) >>> 32;
+            return u >= m ? u - m : u;
+        }
+
+        // Extended Euclid, so m need not be prime
+        public int inv(int a) {
+            int r = m, newR = a, t = 0, newT = 1;
+            while (newR != 0) {
+                int q = r / newR;
+                int tmp = r - q * newR;
+                r = newR;
+                newR = tmp;
+                tmp = t - q * newT;
+                t = newT;
+                newT = tmp;
+            }
+            if (r != 1) {
+                throw new ArithmeticException(a + " is not invertible modulo " + m);
+            }
+            return t < 0 ? t + m : t;
+        }
+
+        public int div(int a, int b) {
+            return mul(a, inv(b));
+        }
+
+        // Element-wise target[i] = target[i] op values[i]. add and sub are
+        // branch-free int arithmetic, which the JIT can vectorize
+        public void addTo(int[] target, int[] values) {
+            checkLengths(target.length, values.length);
+            for (int i = 0; i < target.length; i++) {
+                int s = target[i] + values[i] - m;
+                target[i] = s + ((s >> 31) & m);
+            }
+        }
+
+        public void subFrom(int[] target, int[] values) {
+            checkLengths(target.length, values.length);
+            for (int i = 0; i < target.length; i++) {
+                int d = target[i] - values[i];
+                target[i] = d + ((d >> 31) & m);
+            }
+        }
+
+        public void mulTo(int[] target, int[] values) {
+            checkLengths(target.length, values.length);
+            for (int i = 0; i < target.length; i++) {
+                target[i] = mul(target[i], values[i]);
+            }
+        }
+
+        public void scale(int[] target, int factor) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] = mul(target[i], factor);
+            }
+        }
+
+        // out[i] = values[0] * ... * values[i]
+        public int[] prefixProducts(int[] values) {
+            int[] out = new int[values.length];
+            int acc = 1 % m;
+            for (int i = 0; i < values.length; i++) {
+                out[i] = acc = mul(acc, values[i]);
+            }
+            return out;
+        }
+
+        // All inverses for one inv and 3(n - 1) multiplications
+        public int[] inverses(int[] values) {
+            int n = values.length;
+            int[] out = new int[n];
+            if (n == 0) return out;
+            int acc = 1 % m;
+            for (int i = 0; i < n; i++) {
+                out[i] = acc; // product of values[0..i)
+                acc = mul(acc, values[i]);
+            }
+            if (acc == 0) {
+                throw new ArithmeticException("0 is not invertible modulo " + m);
+            }
+            int inv = inv(acc); // inverse of values[0..i] as i walks down
+            for (int i = n - 1; i >= 0; i--) {
+                out[i] = mul(out[i], inv);
+                inv = mul(inv, values[i]);
+            }
+            return out;
+        }
+
+        public long[] inverses(long[] values) {
+            int[] reduced = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                reduced[i] = reduce(values[i]);
+            }
+            int[] inverses = inverses(reduced);
+            long[] out = new long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                out[i] = inverses[i];
+            }
+            return out;
+        }
+
+        private static void checkLengths(int a, int b) {
+            if (a != b) {
+                throw new IllegalArgumentException("Array lengths differ: " + a + " and " + b);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Modulus(" + m + ")";
+        }
+    }
+
+    public static final Combinatorics COMBINATORICS = new Combinatorics(MODULUS);
+    public static final Combinatorics COMBINATORICS2 = new Combinatorics(MODULUS2);
+
+    // Factorials and inverse factorials mod a prime, so nCr and friends are
+    // a few table lookups. The tables grow on demand, at least doubling, and
+    // each growth costs one inverse plus linear work; call preload(n) to pay
+    // for the largest n up front. Safe to share between threads
+    public static final class Combinatorics {
+        private final Modulus md;
+        private volatile Tables tables;
+
+        private static final class Tables {
+            final int[] fact;
+            final int[] invFact;
+
+            Tables(int[] fact, int[] invFact) {
+                this.fact = fact;
+                this.invFact = invFact;
+            }
+        }
+
+        public Combinatorics(Modulus md) {
+            this.md = md;
+            this.tables = new Tables(new int[] { 1 }, new int[] { 1 });
+        }
+
+        public void preload(int n) {
+            tables(n);
+        }
+
+        private Tables tables(int n) {
+            Tables t = tables;
+            return n < t.fact.length ? t : grow(n);
+        }
+
+        private synchronized Tables grow(int n) {
+            Tables t = tables;
+            int old = t.fact.length;
+            if (n < old) return t;
+            if (n >= md.modulus()) {
+                throw new ArithmeticException("Factorial of " + n + " is 0 modulo " + md.modulus());
+            }
+            int size = (int) Math.min(Math.max(n + 1L, 2L * old), md.modulus());
+            int[] fact = Arrays.copyOf(t.fact, size);
+            int[] invFact = Arrays.copyOf(t.invFact, size);
+            for (int i = old; i < size; i++) {
+                fact[i] = md.mul(fact[i - 1], i);
+            }
+            invFact[size - 1] = md.inv(fact[size - 1]);
+            for (int i = size - 1; i > old; i--) {
+                invFact[i - 1] = md.mul(invFact[i], i);
+            }
+            return tables = new Tables(fact, invFact);
+        }
+
+        public int fact(int n) {
+            return tables(n).fact[n];
+        }
+
+        public int invFact(int n) {
+            return tables(n).invFact[n];
+        }
+
+        // 1 / n for 1 <= n, from the tables rather than a fresh inverse
+        public int inv(int n) {
+            Tables t = tables(n);
+            return md.mul(t.invFact[n], t.fact[n - 1]);
+        }
+
+        // 0 outside 0 <= r <= n
+        public int nCr(int n, int r) {
+            if (r < 0 || r > n) return 0;
+            Tables t = tables(n);
+            return md.mul(t.fact[n], md.mul(t.invFact[r], t.invFact[n - r]));
+        }
+
+        public int nPr(int n, int r) {
+            if (r < 0 || r > n) return 0;
+            Tables t = tables(n);
+            return md.mul(t.fact[n], t.invFact[n - r]);
+        }
+
+        public int catalan(int n) {
+            if (n < 0) return 0;
+            Tables t = tables(2 * n + 1);
+            return md.mul(t.fact[2 * n], md.mul(t.invFact[n], t.invFact[n + 1]));
+        }
+
+        // (k1 + k2 + ...)! / (k1! k2! ...)
+        public int multinomial(int... counts) {
+            long total = 0;
+            for (int k : counts) {
+                if (k < 0) return 0;
+                total += k;
+            }
+            if (total > Integer.MAX_VALUE) {
+                throw new ArithmeticException("Factorial of " + total + " is 0 modulo " + md.modulus());
+            }
+            Tables t = tables((int) total);
+            int result = t.fact[(int) total];
+            for (int k : counts) {
+                result = md.mul(result, t.invFact[k]);
+            }
+            return result;
+        }
+    }
+
+    public static final Ntt NTT = new Ntt(MOD2, 3);
+
+    // Number-theoretic transform over a prime p = c * 2^k + 1 below 2^30 with
+    // primitive root g: iterative, in place, on int[] values in [0, p).
+    // Twiddle factors are tabulated once per size with their Shoup
+    // quotients floor(w * 2^32 / p), which turns each butterfly product into
+    // two int multiplies and a 64-bit one, with no division or multiply-high
+    public static final class Ntt {
+        // Naive multiplication wins while the shorter input is about this short
+        private static final int NAIVE_THRESHOLD = 60;
+        // With MOD2, the primes for multiplyMod: their product exceeds 2^86,
+        // above any coefficient of a product of two 2^20-long inputs mod 2^30
+        private static final Ntt P2 = new Ntt(167772161, 3);
+        private static final Ntt P3 = new Ntt(469762049, 3);
+
+        private final int p;
+        private final int g;
+        private final int maxLength;
+        private final Modulus md;
+        // roots[len + j] = w^j for w a primitive 2len-th root of unity, len a
+        // power of 2; covers transforms up to roots.length
+        private volatile Roots roots;
+
+        private static final class Roots {
+            final int[] w;
+            final int[] shoup;
+
+            Roots(int[] w, int[] shoup) {
+                this.w = w;
+                this.shoup = shoup;
+            }
+        }
+
+        public Ntt(int p, int g) {
+            this.md = new Modulus(p);
+            this.p = p;
+            this.g = g;
+            this.maxLength = Integer.lowestOneBit(p - 1);
+            this.roots = new Roots(new int[1], new int[1]);
+        }
+
+        public int modulus() {
+            return p;
+        }
+
+        // Longest transform this prime supports, 2^23 for MOD2
+        public int maxLength() {
+            return maxLength;
+        }
+
+        private Roots roots(int n) {
+            Roots r = roots;
+            return n <= r.w.length ? r : growRoots(n);
+        }
+
+        private synchronized Roots growRoots(int n) {
+            Roots r = roots;
+            if (n <= r.w.length) return r;
+            int old = r.w.length;
+            int[] w = Arrays.copyOf(r.w, n);
+            int[] shoup = Arrays.copyOf(r.shoup, n);
+            for (int len = old; len < n; len <<= 1) {
+                int step = md.pow(g, (p - 1) / (2L * len));
+                w[len] = 1;
+                for (int j = len + 1; j < 2 * len; j++) {
+                    w[j] = md.mul(w[j - 1], step);
+                }
+                for (int j = len; j < 2 * len; j++) {
+                    shoup[j] = (int) (((long) w[j] << 32) / p);
+                }
+            }
+            return roots = new Roots(w, shoup);
+        }
+
+        // In-place transform of a, whose length is a power of 2; the inverse
+        // includes the division by the length
+        public void transform(int[] a, boolean inverse) {
+            int n = a.length;
+            checkLength(n);
+            for (int i = 1, j = 0; i < n; i++) {
+                int bit = n >> 1;
+                for (; (j & bit) != 0; bit >>= 1) {
+                    j ^= bit;
+                }
+                j ^= bit;
+                if (i < j) {
+                    int t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+            transformBitReversed(a);
+            if (inverse) {
+                finishInverse(a);
+            }
+        }
+
+        private void checkLength(int n) {
+            if (n == 0 || (n & (n - 1)) != 0) {
+                throw new IllegalArgumentException("Transform length must be a power of 2: " + n);
+            }
+            if (n > maxLength) {
+                throw new IllegalArgumentException("Transform length " + n + " exceeds " + maxLength + " for modulus " + p);
+            }
+        }
+
+        // Decimation in time: bit-reversed input, natural-order output
+        private void transformBitReversed(int[] a) {
+            int n = a.length;
+            Roots r = roots(n);
+            int[] w = r.w;
+            int[] shoup = r.shoup;
+            for (int len = 1; len < n; len <<= 1) {
+                for (int i = 0; i < n; i += 2 * len) {
+                    for (int j = 0; j < len; j++) {
+                        int u = a[i + j];
+                        int v = a[i + j + len];
+                        int q = (int) (((long) v * (shoup[len + j] & 0xFFFFFFFFL)) >>> 32);
+                        int t = v * w[len + j] - q * p; // exact in [0, 2p) despite the int overflow
+                        if (t >= p) t -= p;
+                        int sum = u + t - p;
+                        a[i + j] = sum + ((sum >> 31) & p);
+                        int diff = u - t;
+                        a[i + j + len] = diff + ((diff >> 31) & p);
+                    }
+                }
+            }
+        }
+
+        // Decimation in frequency: natural-order input, bit-reversed output.
+        // Convolution pairs it with transformBitReversed and never permutes
+        private void transformToBitReversed(int[] a) {
+            int n = a.length;
+            Roots r = roots(n);
+            int[] w = r.w;
+            int[] shoup = r.shoup;
+            for (int len = n >> 1; len >= 1; len >>= 1) {
+                for (int i = 0; i < n; i += 2 * len) {
+                    for (int j = 0; j < len; j++) {
+                        int u = a[i + j];
+                        int v = a[i + j + len];
+                        int sum = u + v - p;
+                        a[i + j] = sum + ((sum >> 31) & p);
+                        int d = u - v + p;
+                        int q = (int) (((long) d * (shoup[len + j] & 0xFFFFFFFFL)) >>> 32);
+                        int t = d * w[len + j] - q * p;
+                        a[i + j + len] = t >= p ? t - p : t;
+                    }
+                }
+            }
+        }
+
+        // A forward transform applied to a spectrum gives n * x[-k mod n]
+        private void finishInverse(int[] a) {
+            for (int i = 1, j = a.length - 1; i < j; i++, j--) {
+                int t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+            md.scale(a, md.inv(a.length));
+        }
+
+        // Product of two polynomials with coefficients in [0, p), as an array
+        // of length a.length + b.length - 1 (empty if either is empty)
+        public int[] multiply(int[] a, int[] b) {
+            if (a.length == 0 || b.length == 0) {
+                return new int[0];
+            }
+            int resultLength = a.length + b.length - 1;
+            if (Math.min(a.length, b.length) <= NAIVE_THRESHOLD) {
+                return multiplyNaive(a, b, md);
+            }
+            int n = Integer.highestOneBit(resultLength - 1) << 1;
+            checkLength(n);
+            int[] fa = Arrays.copyOf(a, n);
+            transformToBitReversed(fa);
+            if (a == b) {
+                md.mulTo(fa, fa);
+            } else {
+                int[] fb = Arrays.copyOf(b, n);
+                transformToBitReversed(fb);
+                md.mulTo(fa, fb);
+            }
+            transformBitReversed(fa);
+            finishInverse(fa);
+            return fa.length == resultLength ? fa : Arrays.copyOf(fa, resultLength);
+        }
+
+        // Product modulo any mod in [2, 2^30], prime or not: the exact
+        // coefficients are rebuilt from three NTT primes by Garner's
+        // algorithm, so each input may have up to 2^20 coefficients.
+        // Coefficients may be any int, negative included; they are taken
+        // modulo mod first
+        public static int[] multiplyMod(int[] a, int[] b, int mod) {
+            Modulus md = new Modulus(mod);
+            if (a.length == 0 || b.length == 0) {
+                return new int[0];
+            }
+            a = reduced(a, md);
+            b = reduced(b, md);
+            if (Math.min(a.length, b.length) <= NAIVE_THRESHOLD) {
+                return multiplyNaive(a, b, md);
+            }
+            if (Math.min(a.length, b.length) > 1 << 20) {
+                throw new IllegalArgumentException("multiplyMod supports inputs of up to 2^20 coefficients");
+            }
+            int[] r1 = NTT.multiply(reduced(a, NTT.md), reduced(b, NTT.md));
+            int[] r2 = P2.multiply(reduced(a, P2.md), reduced(b, P2.md));
+            int[] r3 = P3.multiply(reduced(a, P3.md), reduced(b, P3.md));
+            int p1 = NTT.p, p2 = P2.p;
+            int inv1Mod2 = P2.md.inv(P2.md.reduce(p1));
+            int inv12Mod3 = P3.md.inv(P3.md.mul(P3.md.reduce(p1), P3.md.reduce(p2)));
+            int p1ModM = md.reduce(p1);
+            int p12ModM = md.mul(p1ModM, md.reduce(p2));
+            int[] out = new int[r1.length];
+            for (int i = 0; i < out.length; i++) {
+                // x = x1 + x2 * p1 + x3 * p1 * p2 with each xk in [0, pk)
+                int x1 = r1[i];
+                int x2 = P2.md.mul(P2.md.sub(r2[i], P2.md.reduce(x1)), inv1Mod2);
+                int x3 = P3.md.mul(P3.md.sub(r3[i], P3.md.reduce(x1 + (long) x2 * p1)), inv12Mod3);
+                out[i] = md.add(md.add(md.reduce(x1), md.mul(md.reduce(x2), p1ModM)), md.mul(md.reduce(x3), p12ModM));
+            }
+            return out;
+        }
+
+        private static int[] reduced(int[] values, Modulus md) {
+            int[] out = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                out[i] = md.reduce(values[i]);
+            }
+            return out;
+        }
+
+        private static int[] multiplyNaive(int[] a, int[] b, Modulus md) {
+            int[] out = new int[a.length + b.length - 1];
+            for (int i = 0; i < a.length; i++) {
+                int ai = a[i];
+                if (ai == 0) continue;
+                for (int j = 0; j < b.length; j++) {
+                    out[i + j] = md.add(out[i + j], md.mul(ai, b[j]));
+                }
+            }
+            return out;
+        }
+    }
+
+    // Sieve of Eratosthenes over odd numbers only, in a bit set: bit i stands
+    // for 2i + 1, so numbers up to n take n / 16 bytes. The static methods
+    // sieve a range [lo, hi] far beyond what fits in memory, segment by segment
+    public static final class PrimeSieve {
+        // 2^18 odd numbers per segment: 32 KB of bits, small enough for L1/L2
+        private static final int SEGMENT_ODDS = 1 << 18;
+        private static final long MAX_SEGMENTED = 1_000_000_000_000_000L;
+
+        private final int limit;
+        private final long[] composite;
+
+        public PrimeSieve(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Sieve limit must be non-negative: " + limit);
+            }
+            this.limit = limit;
+            composite = new long[(limit >>> 7) + 1];
+            composite[0] |= 1; // 1 is not prime
+            if (limit <= 2 * SEGMENT_ODDS) {
+                for (long p = 3; p * p <= limit; p += 2) {
+                    if ((composite[(int) (p >>> 7)] & (1L << (p >>> 1))) == 0) {
+                        for (long m = p * p; m <= limit; m += 2 * p) {
+                            composite[(int) (m >>> 7)] |= 1L << (m >>> 1);
+                        }
+                    }
+                }
+                return;
+            }
+            // Cross out one cache-sized window of the bit set at a time
+            int[] primes = new PrimeSieve((int) Math.sqrt(limit) + 1).primes();
+            long[] next = new long[primes.length]; // odd index of each prime's next odd multiple
+            for (int j = 1; j < primes.length; j++) {
+                next[j] = ((long) primes[j] * primes[j]) >>> 1;
+            }
+            long odds = ((long) limit + 1) >>> 1;
+            for (long start = 0; start < odds; start += SEGMENT_ODDS) {
+                long end = Math.min(odds, start + SEGMENT_ODDS);
+                for (int j = 1; j < primes.length; j++) {
+                    long p = primes[j];
+                    if ((p * p) >>> 1 >= end) break;
+                    long i = next[j];
+                    for (; i < end; i += p) {
+                        composite[(int) (i >>> 6)] |= 1L << i;
+                    }
+                    next[j] = i;
+                }
+            }
+        }
+
+        public int limit() {
+            return limit;
+        }
+
+        public boolean isPrime(int x) {
+            if (x > limit) {
+                throw new IllegalArgumentException(x + " is above the sieve limit " + limit);
+            }
+            if ((x & 1) == 0) return x == 2;
+            return x > 0 && (composite[x >>> 7] & (1L << (x >>> 1))) == 0;
+        }
+
+        public int count() {
+            if (limit < 2) return 0;
+            int lastIndex = (limit - 1) >>> 1; // of the largest odd number <= limit
+            int count = 1;
+            for (int w = 0; w <= lastIndex >>> 6; w++) {
+                long free = ~composite[w];
+                if (w == lastIndex >>> 6) free &= -1L >>> (63 - (lastIndex & 63));
+                count += Long.bitCount(free);
+            }
+            return count;
+        }
+
+        public int[] primes() {
+            int[] out = new int[count()];
+            if (out.length == 0) return out;
+            out[0] = 2;
+            int lastIndex = (limit - 1) >>> 1;
+            int k = 1;
+            for (int w = 0; w <= lastIndex >>> 6; w++) {
+                for (long free = ~composite[w]; free != 0; free &= free - 1) {
+                    int index = (w << 6) + Long.numberOfTrailingZeros(free);
+                    if (index > lastIndex) break;
+                    out[k++] = 2 * index + 1;
+                }
+            }
+            return out;
+        }
+
+        public static long countPrimesInRange(long lo, long hi, boolean parallel) {
+            return sieveRange(lo, hi, parallel, false).count;
+        }
+
+        // Primes in [lo, hi] in increasing order; the range must be narrow
+        // enough for its primes to fit in an array
+        public static long[] primesInRange(long lo, long hi, boolean parallel) {
+            return sieveRange(lo, hi, parallel, true).primes.toArray();
+        }
+
+        private static final class RangeResult {
+            long count;
+            LongList primes;
+        }
+
+        /**
+         * Segmented sieve of [lo, hi] with hi up to 10^15. Each segment is
+         * crossed out by the odd primes up to sqrt(hi), each of which keeps
+         * its next multiple between segments, so no division is repeated.
+         * With parallel set (and more than one core) contiguous runs of
+         * segments are sieved on the common ForkJoinPool.
+         */
+        private static RangeResult sieveRange(long lo, long hi, boolean parallel, boolean collect) {
+            if (hi > MAX_SEGMENTED) {
+                throw new IllegalArgumentException("Range end " + hi + " is above " + MAX_SEGMENTED);
+            }
+            RangeResult result = new RangeResult();
+            result.primes = collect ? new LongList() : null;
+            lo = Math.max(lo, 0);
+            if (lo <= 2 && 2 <= hi) {
+                result.count = 1;
+                if (collect) result.primes.add(2);
+            }
+            long firstOdd = Math.max(lo, 1) | 1;
+            long lastOdd = (hi & 1) == 0 ? hi - 1 : hi;
+            if (firstOdd > lastOdd) return result;
+
+            int root = (int) Math.sqrt((double) hi);
+            while ((long) root * root > hi) root--;
+            while ((long) (root + 1) * (root + 1) <= hi) root++;
+            int[] primes = new PrimeSieve(root).primes();
+            int[] basePrimes = Arrays.copyOfRange(primes, Math.min(1, primes.length), primes.length);
+
+            long segments = ((lastOdd - firstOdd) / 2) / SEGMENT_ODDS + 1;
+            int chunks = parallel && ForkJoinPool.getCommonPoolParallelism() >= 2
+                    ? (int) Math.min(segments, 4L * ForkJoinPool.getCommonPoolParallelism()) : 1;
+            long[] counts = new long[chunks];
+            LongList[] lists = new LongList[chunks];
+            IntConsumer chunk = k -> {
+                long from = firstOdd + 2L * SEGMENT_ODDS * (segments * k / chunks);
+                long to = Math.min(lastOdd, firstOdd + 2L * SEGMENT_ODDS * (segments * (k + 1) / chunks) - 2);
+                lists[k] = collect ? new LongList() : null;
+                counts[k] = sieveSegments(from, to, basePrimes, lists[k]);
+            };
+            if (chunks == 1) {
+                chunk.accept(0);
+            } else {
+                joinParsed(parseSlices(chunks, chunk, null));
+            }
+            for (int k = 0; k < chunks; k++) {
+                result.count += counts[k];
+                if (collect) {
+                    for (int i = 0; i < lists[k].size(); i++) {
+                        result.primes.add(lists[k].get(i));
+                    }
+                }
+            }
+            return result;
+        }
+
+        // Odd primes among the odd numbers from..to, both odd
+        private static long sieveSegments(long from, long to, int[] basePrimes, LongList out) {
+            long[] next = new long[basePrimes.length]; // odd index (x >>> 1) of each prime's next odd multiple
+            for (int j = 0; j < basePrimes.length; j++) {
+                long p = basePrimes[j];
+                long m = Math.max(p * p, (from + p - 1) / p * p);
+                if ((m & 1) == 0) m += p;
+                next[j] = m >>> 1;
+            }
+            long[] bits = new long[SEGMENT_ODDS >>> 6];
+            long count = 0;
+            for (long segLo = from; segLo <= to; segLo += 2L * SEGMENT_ODDS) {
+                int odds = (int) Math.min(SEGMENT_ODDS, (to - segLo) / 2 + 1);
+                int words = (odds + 63) >>> 6;
+                Arrays.fill(bits, 0, words, 0L);
+                long base = segLo >>> 1;
+                long end = base + odds;
+                long segHi = segLo + 2L * (odds - 1);
+                for (int j = 0; j < basePrimes.length; j++) {
+                    int p = basePrimes[j];
+                    if ((long) p * p > segHi) break;
+                    long i = next[j];
+                    for (; i < end; i += p) {
+                        int bit = (int) (i - base);
+                        bits[bit >>> 6] |= 1L << bit;
+                    }
+                    next[j] = i;
+                }
+                if (segLo == 1) bits[0] |= 1; // 1 is not prime
+                for (int w = 0; w < words; w++) {
+                    long free = ~bits[w];
+                    if (w == words - 1 && (odds & 63) != 0) free &= (1L << (odds & 63)) - 1;
+                    count += Long.bitCount(free);
+                    if (out != null) {
+                        for (; free != 0; free &= free - 1) {
+                            out.add(segLo + 2L * ((w << 6) + Long.numberOfTrailingZeros(free)));
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    // Linear sieve: each composite is crossed out exactly once, by its
+    // smallest prime factor, and that factor is kept for O(log n) factorization
+    public static final class LinearSieve {
+        private final int[] smallestFactor;
+        private final int[] primes;
+
+        public LinearSieve(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Sieve limit must be non-negative: " + limit);
+            }
+            smallestFactor = new int[limit + 1];
+            IntList found = new IntList(limit < 10 ? 4 : (int) (limit / Math.log(limit) * 1.2));
+            for (int i = 2; i <= limit; i++) {
+                if (smallestFactor[i] == 0) {
+                    smallestFactor[i] = i;
+                    found.add(i);
+                }
+                int[] ps = found.array();
+                int cap = smallestFactor[i];
+                for (int j = 0, n = found.size(); j < n; j++) {
+                    int p = ps[j];
+                    if (p > cap || (long) i * p > limit) break;
+                    smallestFactor[i * p] = p;
+                }
+            }
+            primes = found.toArray();
+        }
+
+        public int limit() {
+            return smallestFactor.length - 1;
+        }
+
+        public int smallestFactor(int x) {
+            return smallestFactor[x];
+        }
+
+        public boolean isPrime(int x) {
+            return x >= 2 && smallestFactor[x] == x;
+        }
+
+        public int[] primes() {
+            return primes.clone();
         }
 
-        return rows.toArray(new String[0][]);
+        // Prime factors of x >= 1 in increasing order, repeated by multiplicity
+        public int[] factorize(int x) {
+            if (x < 1) {
+                throw new IllegalArgumentException("Cannot factorize " + x);
+            }
+            int[] factors = new int[31];
+            int k = 0;
+            while (x > 1) {
+                int p = smallestFactor[x];
+                factors[k++] = p;
+                x /= p;
+            }
+            return Arrays.copyOf(factors, k);
+        }
     }
 
-    /**
-     * Reads exactly n lines as a matrix (when you know the number of rows)
-     */
-    public int[][] readIntMatrix(int rows) {
-        int[][] matrix = new int[rows][];
-        for (int i = 0; i < rows; i++) {
-            matrix[i] = readIntArray();
+    // Low-level output: everything below ends up in outBuf
+    private void flushBuffer() {
+        if (outPos > 0) {
+            try {
+                out.write(outBuf, 0, outPos);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write output", e);
+            }
+            if (METRICS) {
+                metrics.flushes++;
+                metrics.bytesWritten += outPos;
+            }
+            outPos = 0;
         }
-        return matrix;
     }
 
-    /**
-     * Reads exactly n lines as a long matrix
-     */
-    public long[][] readLongMatrix(int rows) {
-        long[][] matrix = new long[rows][];
-        for (int i = 0; i < rows; i++) {
-            matrix[i] = readLongArray();
+    private void writeByte(int b) {
+        if (outPos == outBuf.length) {
+            flushBuffer();
         }
-        return matrix;
+        outBuf[outPos++] = (byte) b;
     }
 
-    /**
-     * Reads exactly n lines as a character matrix
-     */
-    public char[][] readCharMatrix(int rows) {
-        char[][] matrix = new char[rows][];
-        for (int i = 0; i < rows; i++) {
-            String line = nextLine();
-            matrix[i] = line != null ? line.toCharArray() : new char[0];
+    private void writeBytes(byte[] bytes, int off, int len) {
+        if (len > outBuf.length - outPos) {
+            flushBuffer();
+            if (len >= outBuf.length) {
+                try {
+                    out.write(bytes, off, len);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write output", e);
+                }
+                if (METRICS) {
+                    metrics.flushes++;
+                    metrics.bytesWritten += len;
+                }
+                return;
+            }
         }
-        return matrix;
+        System.arraycopy(bytes, off, outBuf, outPos, len);
+        outPos += len;
     }
 
-    // 2D Array methods
-    public int[][] nextInt2DArray(int rows, int cols) {
-        int[][] arr = new int[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                arr[i][j] = nextInt();
-            }
+    private void writeNewline() {
+        if (NEWLINE.length == 1) {
+            writeByte(NEWLINE[0]);
+        } else {
+            writeBytes(NEWLINE, 0, NEWLINE.length);
         }
-        return arr;
     }
 
-    public long[][] nextLong2DArray(int rows, int cols) {
-        long[][] arr = new long[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                arr[i][j] = nextLong();
+    // ASCII is copied char by char; anything else is encoded like PrintWriter would
+    private void writeString(String s) {
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] rest = s.substring(i).getBytes(charset);
+                writeBytes(rest, 0, rest.length);
+                return;
             }
+            if (outPos == outBuf.length) {
+                flushBuffer();
+            }
+            outBuf[outPos++] = (byte) c;
         }
-        return arr;
     }
 
-    public char[][] nextChar2DArray(int rows, int cols) {
-        char[][] arr = new char[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            String line = nextLine();
-            for (int j = 0; j < cols && j < line.length(); j++) {
-                arr[i][j] = line.charAt(j);
+    // Formats digits backwards into outBuf two at a time, without a String
+    private void writeLong(long v) {
+        if (outBuf.length - outPos < 20) {
+            flushBuffer();
+        }
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) {
+                writeString("-9223372036854775808");
+                return;
             }
+            outBuf[outPos++] = '-';
+            v = -v;
+        }
+        int p = outPos + digitCount(v);
+        outPos = p;
+        while (v > Integer.MAX_VALUE) {
+            long q = v / 100;
+            int r = (int) (v - q * 100) << 1;
+            v = q;
+            outBuf[--p] = DIGIT_PAIRS[r + 1];
+            outBuf[--p] = DIGIT_PAIRS[r];
+        }
+        int i = (int) v;
+        while (i >= 100) {
+            int q = i / 100;
+            int r = (i - q * 100) << 1;
+            i = q;
+            outBuf[--p] = DIGIT_PAIRS[r + 1];
+            outBuf[--p] = DIGIT_PAIRS[r];
+        }
+        if (i >= 10) {
+            outBuf[--p] = DIGIT_PAIRS[(i << 1) + 1];
+            outBuf[--p] = DIGIT_PAIRS[i << 1];
+        } else {
+            outBuf[--p] = (byte) ('0' + i);
         }
-        return arr;
     }
 
-    // Variable-size 2D arrays (common in USACO)
-    public List<List<Integer>> nextInt2DList(int rows) {
-        List<List<Integer>> list = new ArrayList<>();
-        for (int i = 0; i < rows; i++) {
-            list.add(nextIntList());
+    // Writes exactly 18 digits, zero-padded: an inner chunk of a BigInteger
+    private void writeChunk(long v) {
+        if (outBuf.length - outPos < BIG_CHUNK_DIGITS) {
+            flushBuffer();
+        }
+        int p = outPos + BIG_CHUNK_DIGITS;
+        outPos = p;
+        for (int k = 0; k < BIG_CHUNK_DIGITS / 2; k++) {
+            long q = v / 100;
+            int r = (int) (v - q * 100) << 1;
+            v = q;
+            outBuf[--p] = DIGIT_PAIRS[r + 1];
+            outBuf[--p] = DIGIT_PAIRS[r];
         }
-        return list;
     }
 
-    // Graph input helpers
-    public List<List<Integer>> readAdjacencyList(int n, int m) {
-        List<List<Integer>> adj = new ArrayList<>();
-        for (int i = 0; i <= n; i++) {
-            adj.add(new ArrayList<>());
+    /**
+     * Prints x without toString(): it is split by the same 10^(18 * 2^k)
+     * powers nextBigInteger uses, down to 18-digit chunks formatted straight
+     * into outBuf, every chunk but the first zero-padded
+     */
+    private void writeBigInteger(BigInteger x) {
+        if (x.signum() < 0) {
+            writeByte('-');
+            x = x.negate();
         }
-        for (int i = 0; i < m; i++) {
-            int u = nextInt();
-            int v = nextInt();
-            adj.get(u).add(v);
-            adj.get(v).add(u);
+        if (x.bitLength() < 64) {
+            writeLong(x.longValue());
+            return;
         }
-        return adj;
+        int level = 0;
+        while (chunkPower(level).compareTo(x) <= 0) {
+            level++;
+        }
+        writeChunks(x, level, false);
     }
 
-    public List<List<int[]>> readWeightedAdjacencyList(int n, int m) {
-        List<List<int[]>> adj = new ArrayList<>();
-        for (int i = 0; i <= n; i++) {
-            adj.add(new ArrayList<>());
+    // x < 10^(18 * 2^level); pad writes all 18 * 2^level digits
+    private void writeChunks(BigInteger x, int level, boolean pad) {
+        if (level == 0) {
+            if (pad) {
+                writeChunk(x.longValue());
+            } else {
+                writeLong(x.longValue());
+            }
+            return;
         }
-        for (int i = 0; i < m; i++) {
-            int u = nextInt();
-            int v = nextInt();
-            int w = nextInt();
-            adj.get(u).add(new int[] { v, w });
-            adj.get(v).add(new int[] { u, w });
+        BigInteger[] parts = x.divideAndRemainder(chunkPower(level - 1));
+        if (!pad && parts[0].signum() == 0) {
+            writeChunks(parts[1], level - 1, false);
+        } else {
+            writeChunks(parts[0], level - 1, pad);
+            writeChunks(parts[1], level - 1, true);
         }
-        return adj;
     }
 
-    // Async methods for large inputs
-    public CompletableFuture<int[]> nextIntArrayAsync(int n) {
-        return CompletableFuture.supplyAsync(() -> nextIntArray(n), executor)
-                .orTimeout(0, TimeUnit.SECONDS);
+    private static int digitCount(long v) {
+        long bound = 10;
+        for (int d = 1; d < 19; d++) {
+            if (v < bound)
+                return d;
+            bound *= 10;
+        }
+        return 19;
     }
 
-    public CompletableFuture<long[]> nextLongArrayAsync(int n) {
-        return CompletableFuture.supplyAsync(() -> nextLongArray(n), executor)
-                .orTimeout(0, TimeUnit.SECONDS);
+    // Output methods
+    public void print(Object obj) {
+        if (!closed.get()) {
+            writeString(String.valueOf(obj));
+        }
     }
 
-    // п
-    public CompletableFuture<int[][]> nextInt2DArrayAsync(int rows, int cols) {
-        return CompletableFuture.supplyAsync(() -> nextInt2DArray(rows, cols), executor)
-                .orTimeout(0, TimeUnit.SECONDS);
+    public void print(String s) {
+        if (!closed.get()) {
+            writeString(String.valueOf(s));
+        }
     }
 
-    // Mathematical utility methods
-    public static int gcd(int a, int b) {
-        return b == 0 ? a : gcd(b, a % b);
+    public void print(int x) {
+        if (!closed.get()) {
+            writeLong(x);
+        }
     }
 
-    public static long gcd(long a, long b) {
-        return b == 0 ? a : gcd(b, a % b);
+    public void print(long x) {
+        if (!closed.get()) {
+            writeLong(x);
+        }
     }
 
-    public static int lcm(int a, int b) {
-        return a / gcd(a, b) * b;
+    public void print(char c) {
+        if (!closed.get()) {
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                writeString(String.valueOf(c));
+            }
+        }
     }
 
-    public static long lcm(long a, long b) {
-        return a / gcd(a, b) * b;
+    public void print(double x) {
+        if (!closed.get()) {
+            writeString(String.valueOf(x));
+        }
     }
 
-    public static long modPow(long base, long exp, long mod) {
-        long result = 1;
-        base %= mod;
-        while (exp > 0) {
-            if ((exp & 1) == 1) {
-                result = (result * base) % mod;
+    public void print(BigInteger x) {
+        if (!closed.get()) {
+            if (x == null) {
+                writeString("null");
+            } else {
+                writeBigInteger(x);
             }
-            base = (base * base) % mod;
-            exp >>= 1;
         }
-        return result;
     }
 
-    public static long modInv(long a, long mod) {
-        return modPow(a, mod - 2, mod);
+    public void println(Object obj) {
+        print(obj);
+        println();
     }
 
-    // Fast integer log base 2 (optimized for competitive programming)
-    public static int log2(int x) {
-        return 31 - Integer.numberOfLeadingZeros(x);
+    public void println(String s) {
+        print(s);
+        println();
     }
 
-    public static int log2(long x) {
-        return 63 - Long.numberOfLeadingZeros(x);
+    public void println(int x) {
+        print(x);
+        println();
     }
 
-    // Check if power of 2
-    public static boolean isPowerOfTwo(int x) {
-        return x > 0 && (x & (x - 1)) == 0;
+    public void println(long x) {
+        print(x);
+        println();
     }
 
-    public static boolean isPowerOfTwo(long x) {
-        return x > 0 && (x & (x - 1)) == 0;
+    public void println(char c) {
+        print(c);
+        println();
     }
 
-    // Output methods
-    public void print(Object obj) {
-        if (!closed.get()) {
-            pw.print(obj);
-        }
+    public void println(double x) {
+        print(x);
+        println();
     }
 
-    public void println(Object obj) {
-        if (!closed.get()) {
-            pw.println(obj);
-        }
+    public void println(BigInteger x) {
+        print(x);
+        println();
     }
 
     public void println() {
         if (!closed.get()) {
-            pw.println();
+            writeNewline();
         }
     }
 
     public void printf(String format, Object... args) {
         if (!closed.get()) {
-            pw.printf(format, args);
+            writeString(String.format(format, args));
         }
     }
 
@@ -574,12 +3856,13 @@ public static class FastIO implements AutoCloseable {
     public void printArray(int[] arr, String delimiter) {
         if (closed.get() || arr == null)
             return;
+        byte[] delim = delimiter.getBytes(charset);
         for (int i = 0; i < arr.length; i++) {
             if (i > 0)
-                pw.print(delimiter);
-            pw.print(arr[i]);
+                writeBytes(delim, 0, delim.length);
+            writeLong(arr[i]);
         }
-        pw.println();
+        writeNewline();
     }
 
     public void printArray(long[] arr) {
@@ -589,12 +3872,13 @@ public static class FastIO implements AutoCloseable {
     public void printArray(long[] arr, String delimiter) {
         if (closed.get() || arr == null)
             return;
+        byte[] delim = delimiter.getBytes(charset);
         for (int i = 0; i < arr.length; i++) {
             if (i > 0)
-                pw.print(delimiter);
-            pw.print(arr[i]);
+                writeBytes(delim, 0, delim.length);
+            writeLong(arr[i]);
         }
-        pw.println();
+        writeNewline();
     }
 
     public void print2DArray(int[][] arr) {
@@ -617,7 +3901,8 @@ public static class FastIO implements AutoCloseable {
         if (closed.get() || arr == null)
             return;
         for (char[] row : arr) {
-            pw.println(new String(row));
+            writeString(new String(row));
+            writeNewline();
         }
     }
 
@@ -627,79 +3912,331 @@ public static class FastIO implements AutoCloseable {
     }
 
     public void printList(List<?> list, String delimiter) {
+        if (closed.get() || list == null)
+            return;
+        byte[] delim = delimiter.getBytes(charset);
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0)
+                writeBytes(delim, 0, delim.length);
+            Object item = list.get(i);
+            if (item instanceof Integer || item instanceof Long) {
+                writeLong(((Number) item).longValue());
+            } else {
+                writeString(String.valueOf(item));
+            }
+        }
+        writeNewline();
+    }
+
+    public void printList(IntList list) {
+        if (closed.get() || list == null)
+            return;
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0)
+                writeByte(' ');
+            writeLong(list.get(i));
+        }
+        writeNewline();
+    }
+
+    public void printList(LongList list) {
         if (closed.get() || list == null)
             return;
         for (int i = 0; i < list.size(); i++) {
             if (i > 0)
-                pw.print(delimiter);
-            pw.print(list.get(i));
+                writeByte(' ');
+            writeLong(list.get(i));
         }
-        pw.println();
+        writeNewline();
     }
 
     public void flush() {
         if (!closed.get()) {
-            pw.flush();
+            FlushEvent event = new FlushEvent();
+            event.begin();
+            int pending = outPos;
+            flushBuffer();
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to flush output", e);
+            }
+            event.finish(pending, false);
         }
     }
 
-    // Check if more input is available (enhanced for matrix reading)
+    /**
+     * Whether another token is available. Blanks are scanned in place through
+     * the lookahead buffer rather than consumed, so the answer costs nothing
+     * while the current chunk has data and never disturbs what nextLine() sees
+     */
     public boolean hasNext() {
         if (closed.get())
             return false;
+        if (pipeline != null)
+            return batchPos < batchLen || nextBatch();
 
-        try {
-            synchronized (lock) {
-                // Check if we have a tokenizer with more tokens
-                if (st != null && st.hasMoreTokens()) {
+        int p = bufPtr;
+        for (;;) {
+            for (; p < bufLen; p++) {
+                if ((buf.get(p) & 0xFF) > ' ') {
                     return true;
                 }
+            }
+            int scanned = p - bufPtr;
+            if (!extendBuffer()) {
+                return false;
+            }
+            p = bufPtr + scanned;
+        }
+    }
 
-                // Check if BufferedReader has more data
-                if (br.ready()) {
-                    return true;
-                }
+    /**
+     * Whether nextLine() would return a line rather than null
+     */
+    public boolean hasNextLine() {
+        if (closed.get())
+            return false;
+        if (pipeline != null)
+            throw pipelineUnsupported();
 
-                // Check if async future has data
-                if (nextLineFuture != null && !nextLineFuture.isDone()) {
+        // After a token, the rest of the line belongs to the consumed line or
+        // is carried past the next one, so a line has to follow its break
+        boolean skipping = midLine;
+        int p = bufPtr;
+        for (;;) {
+            for (; p < bufLen; p++) {
+                if (!skipping) {
                     return true;
                 }
-
-                // Try to peek ahead by attempting to read a line
-                try {
-                    br.mark(1024); // Mark current position
-                    String peekLine = br.readLine();
-                    if (peekLine != null) {
-                        br.reset(); // Reset to marked position
-                        return true;
-                    }
-                } catch (IOException e) {
-                    // If mark/reset fails, fall back to basic check
-                    try {
-                        br.reset(); // Try to reset anyway
-                    } catch (IOException ignored) {
-                    }
+                if (buf.get(p) == '\n') {
+                    skipping = false;
                 }
+            }
+            int scanned = p - bufPtr;
+            if (!extendBuffer()) {
+                return false;
+            }
+            p = bufPtr + scanned;
+        }
+    }
+
+    // Mutable counterparts of Metrics, updated on the reading thread
+    private static final class MetricCounters {
+        long bytesRead, bytesWritten, lines, ints, longs, doubles, others;
+        long flushes, parseSamples, parseNanos;
+        private int untilSample = METRICS_SAMPLE_RATE;
+
+        // Count a number and say whether its parse should be timed
+        boolean sampleInt() {
+            ints++;
+            return sample();
+        }
+
+        boolean sampleLong() {
+            longs++;
+            return sample();
+        }
 
+        boolean sampleDouble() {
+            doubles++;
+            return sample();
+        }
+
+        private boolean sample() {
+            if (--untilSample > 0)
                 return false;
+            untilSample = METRICS_SAMPLE_RATE;
+            return true;
+        }
+
+        void parsed(long start) {
+            parseSamples++;
+            parseNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Snapshot of the I/O counters. Tokens are split by how they were read:
+     * ints, longs, doubles, and others (next, nextChar, nextBigInteger).
+     * Prefetch figures count read-ahead slots that were ready (hits) or had to
+     * be waited for (misses); they stay zero without a read-ahead thread.
+     * Parse time covers one in every fastio.metrics.sampleRate single-number reads.
+     */
+    public static final class Metrics {
+        public final long bytesRead, bytesWritten, lines;
+        public final long ints, longs, doubles, others;
+        public final long prefetchHits, prefetchMisses, prefetchWaitNanos;
+        public final long flushes, parseSamples, parseNanos;
+
+        Metrics(MetricCounters c, long bytesRead, long prefetchHits, long prefetchMisses, long prefetchWaitNanos) {
+            this.bytesRead = bytesRead;
+            this.bytesWritten = c.bytesWritten;
+            this.lines = c.lines;
+            this.ints = c.ints;
+            this.longs = c.longs;
+            this.doubles = c.doubles;
+            this.others = c.others;
+            this.prefetchHits = prefetchHits;
+            this.prefetchMisses = prefetchMisses;
+            this.prefetchWaitNanos = prefetchWaitNanos;
+            this.flushes = c.flushes;
+            this.parseSamples = c.parseSamples;
+            this.parseNanos = c.parseNanos;
+        }
+
+        public long tokens() {
+            return ints + longs + doubles + others;
+        }
+
+        public double bytesPerFlush() {
+            return flushes == 0 ? 0 : (double) bytesWritten / flushes;
+        }
+
+        public double nanosPerParse() {
+            return parseSamples == 0 ? 0 : (double) parseNanos / parseSamples;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("read=%dB lines=%d tokens=%d (int=%d long=%d double=%d other=%d) "
+                            + "prefetch hit=%d miss=%d wait=%.3fms written=%dB flushes=%d (%.0fB each) parse=%.1fns/number",
+                    bytesRead, lines, tokens(), ints, longs, doubles, others,
+                    prefetchHits, prefetchMisses, prefetchWaitNanos / 1e6,
+                    bytesWritten, flushes, bytesPerFlush(), nanosPerParse());
+        }
+    }
+
+    /**
+     * Counters since construction or the last resetMetrics(). Only available
+     * when the JVM runs with -Dfastio.metrics=true
+     */
+    public Metrics metrics() {
+        if (!METRICS) {
+            throw new IllegalStateException("Metrics are disabled; run with -Dfastio.metrics=true");
+        }
+        SlotRing slots = ring != null ? ring : pipeline;
+        long bytesRead = pipeline != null ? pipeline.bytesRead - pipelineBytesBase : metrics.bytesRead;
+        return slots == null
+                ? new Metrics(metrics, bytesRead, 0, 0, 0)
+                : new Metrics(metrics, bytesRead, slots.hits, slots.misses, slots.waitNanos);
+    }
+
+    public void resetMetrics() {
+        if (!METRICS) {
+            throw new IllegalStateException("Metrics are disabled; run with -Dfastio.metrics=true");
+        }
+        metrics.bytesRead = metrics.bytesWritten = metrics.lines = 0;
+        metrics.ints = metrics.longs = metrics.doubles = metrics.others = 0;
+        metrics.flushes = metrics.parseSamples = metrics.parseNanos = 0;
+        SlotRing slots = ring != null ? ring : pipeline;
+        if (slots != null) {
+            slots.hits = slots.misses = slots.waitNanos = 0;
+        }
+        if (pipeline != null) {
+            pipelineBytesBase = pipeline.bytesRead;
+        }
+    }
+
+    // JDK Flight Recorder events, so a recording shows FastIO stalls next to GC
+    // and compute. All are disabled by default; enable them by name in the
+    // recording settings (e.g. fastio.PrefetchWait#enabled=true). While
+    // disabled each costs only JFR's isEnabled() check.
+
+    @Name("fastio.Refill")
+    @Label("FastIO Input Refill")
+    @Category("FastIO")
+    @Enabled(false)
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class RefillEvent extends Event {
+        @Label("Source")
+        String source;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        void finish(String source, long bytes) {
+            end();
+            if (shouldCommit()) {
+                this.source = source;
+                this.bytes = Math.max(bytes, 0);
+                commit();
+            }
+        }
+    }
+
+    @Name("fastio.PrefetchWait")
+    @Label("FastIO Prefetch Wait")
+    @Category("FastIO")
+    @Enabled(false)
+    @Threshold("1 ms")
+    static final class PrefetchWaitEvent extends Event {
+        @Label("Waited For")
+        String contents;
+
+        void finish(String contents) {
+            end();
+            if (shouldCommit()) {
+                this.contents = contents;
+                commit();
+            }
+        }
+    }
+
+    @Name("fastio.Flush")
+    @Label("FastIO Output Flush")
+    @Category("FastIO")
+    @Enabled(false)
+    @Threshold("1 ms")
+    static final class FlushEvent extends Event {
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Close")
+        boolean close;
+
+        void finish(long bytes, boolean close) {
+            end();
+            if (shouldCommit()) {
+                this.bytes = bytes;
+                this.close = close;
+                commit();
+            }
+        }
+    }
+
+    @Name("fastio.BulkRead")
+    @Label("FastIO Bulk Read")
+    @Category("FastIO")
+    @Enabled(false)
+    static final class BulkReadEvent extends Event {
+        @Label("Reader")
+        String reader;
+        @Label("Elements")
+        long elements;
+
+        void finish(String reader, long elements) {
+            end();
+            if (shouldCommit()) {
+                this.reader = reader;
+                this.elements = elements;
+                commit();
             }
-        } catch (IOException e) {
-            System.out.println(e);
-            return false;
         }
     }
 
     // Debug methods for competitive programming
     public void debug(Object... objects) {
         if (!closed.get()) {
-            pw.print("DEBUG: ");
+            writeString("DEBUG: ");
             for (int i = 0; i < objects.length; i++) {
                 if (i > 0)
-                    pw.print(", ");
-                pw.print(objects[i]);
+                    writeString(", ");
+                writeString(String.valueOf(objects[i]));
             }
-            pw.println();
-            pw.flush();
+            writeNewline();
+            flush();
         }
     }
 
@@ -713,9 +4250,10 @@ public static class FastIO implements AutoCloseable {
 
     public void debug2DArray(int[][] arr) {
         if (!closed.get()) {
-            pw.println("DEBUG 2D Array:");
+            writeString("DEBUG 2D Array:");
+            writeNewline();
             print2DArray(arr);
-            pw.flush();
+            flush();
         }
     }
 
@@ -724,32 +4262,33 @@ public static class FastIO implements AutoCloseable {
     public void close() {
         if (closed.compareAndSet(false, true)) {
             try {
-                synchronized (lock) {
-                    if (nextLineFuture != null && !nextLineFuture.isDone()) {
-                        nextLineFuture.cancel(true);
-                    }
+                if (ring != null) {
+                    ring.stop();
+                }
+                if (pipeline != null) {
+                    pipeline.stop();
                 }
 
-                executor.shutdown();
                 try {
-                    if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
-                        executor.shutdownNow();
-                        if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                            System.err.println("FastIO executor did not terminate cleanly");
-                        }
+                    if (channel != null) {
+                        channel.close();
+                    } else {
+                        in.close();
                     }
-                } catch (InterruptedException e) {
-                    executor.shutdownNow();
-                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    System.err.println("Error closing input: " + e.getMessage());
                 }
 
+                FlushEvent event = new FlushEvent();
+                event.begin();
+                int pending = outPos;
                 try {
-                    br.close();
-                } catch (IOException e) {
-                    System.err.println("Error closing BufferedReader: " + e.getMessage());
+                    flushBuffer();
+                    out.close();
+                } catch (IOException | UncheckedIOException e) {
+                    System.err.println("Error closing output: " + e.getMessage());
                 }
-
-                pw.close();
+                event.finish(pending, true);
 
             } catch (Exception e) {
                 System.err.println("Error during FastIO cleanup: " + e.getMessage());
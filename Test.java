@@ -1,7 +1,25 @@
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 public class Test {
     
@@ -9,34 +27,537 @@ public class Test {
         public final boolean passed;
         public final String actualOutput;
         public final long executionTimeMs;
-        public final long memoryUsedBytes;
+        public final long memoryUsedBytes; // peak heap growth over the run, -1 if not measured
         public final String errorMessage;
+        // Measured on the thread that ran the solution; -1 when not measured
+        public final long wallTimeNanos;
+        public final long cpuTimeNanos;
+        public final long allocatedBytes;
+        public final long peakHeapBytes;
+        public final boolean timedOut;
         
         public TestResult(boolean passed, String actualOutput, long executionTimeMs, long memoryUsedBytes, String errorMessage) {
+            this(passed, actualOutput, executionTimeMs, memoryUsedBytes, errorMessage, -1, -1, -1, -1, false);
+        }
+
+        public TestResult(boolean passed, String actualOutput, long executionTimeMs, long memoryUsedBytes, String errorMessage,
+                          long wallTimeNanos, long cpuTimeNanos, long allocatedBytes, long peakHeapBytes, boolean timedOut) {
             this.passed = passed;
             this.actualOutput = actualOutput != null ? actualOutput : "";
             this.executionTimeMs = executionTimeMs;
             this.memoryUsedBytes = memoryUsedBytes;
             this.errorMessage = errorMessage;
+            this.wallTimeNanos = wallTimeNanos;
+            this.cpuTimeNanos = cpuTimeNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+            this.timedOut = timedOut;
         }
 
+        // Time is the larger of wall and CPU time, so neither blocking nor
+        // extra threads hide time spent; memory is the peak heap growth
         public boolean passesConstraints(long maxExecutionTimeMs, long maxMemoryBytes) {
+            long timeNanos = Math.max(wallTimeNanos >= 0 ? wallTimeNanos : executionTimeMs * 1_000_000, cpuTimeNanos);
             return passed && 
                    errorMessage == null && 
-                   this.executionTimeMs <= maxExecutionTimeMs && 
+                   !timedOut &&
+                   timeNanos <= maxExecutionTimeMs * 1_000_000 && 
                    this.memoryUsedBytes <= maxMemoryBytes;
         }
         
         @Override
         public String toString() {
-            return String.format("Test %s | Time: %dms | Memory: %d bytes | Output: '%s'%s",
+            return String.format("Test %s | Time: %dms%s | Memory: %s%s | Output: '%s'%s",
                 passed ? "PASSED" : "FAILED",
                 executionTimeMs,
-                memoryUsedBytes,
+                cpuTimeNanos >= 0 ? String.format(" (CPU %dms)", cpuTimeNanos / 1_000_000) : "",
+                memoryUsedBytes >= 0 ? memoryUsedBytes + " bytes" : "n/a",
+                allocatedBytes >= 0 ? String.format(" (allocated %d bytes%s)", allocatedBytes,
+                    peakHeapBytes >= 0 ? ", peak heap " + peakHeapBytes + " bytes" : "") : "",
                 actualOutput.replace("\n", "\\n").replace("\r", "\\r"),
                 errorMessage != null ? " | Error: " + errorMessage : "");
         }
     }
+
+    // Runs whose spread or drift between the first and second half of the
+    // measured runs exceeds this, or whose p90 lies more than three times this
+    // above the median, are reported as unstable. Spread is the median absolute
+    // deviation scaled to match a stddev, over the median, so a stray GC pause
+    // does not by itself make a benchmark unstable while a bimodal one does
+    public static final double UNSTABLE_THRESHOLD = 0.10;
+
+    public static class BenchmarkResult extends TestResult {
+        public final int warmupIterations;
+        public final long[] runNanos; // measured runs in the order they ran
+        public final long minNanos;
+        public final long medianNanos;
+        public final long p90Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+        public final double meanNanos;
+        public final double stdDevNanos;
+        public final double spread; // robust relative spread, see UNSTABLE_THRESHOLD
+        public final double drift; // relative change of the median from the first to the second half
+        public final boolean stable;
+
+        public BenchmarkResult(boolean passed, String actualOutput, long memoryUsedBytes, String errorMessage,
+                               int warmupIterations, long[] runNanos) {
+            super(passed, actualOutput, median(runNanos) / 1_000_000, memoryUsedBytes, errorMessage);
+            this.warmupIterations = warmupIterations;
+            this.runNanos = runNanos.clone();
+            long[] sorted = runNanos.clone();
+            Arrays.sort(sorted);
+            this.minNanos = sorted.length > 0 ? sorted[0] : 0;
+            this.medianNanos = percentile(sorted, 50);
+            this.p90Nanos = percentile(sorted, 90);
+            this.p99Nanos = percentile(sorted, 99);
+            this.maxNanos = sorted.length > 0 ? sorted[sorted.length - 1] : 0;
+
+            double sum = 0;
+            for (long t : runNanos) {
+                sum += t;
+            }
+            this.meanNanos = runNanos.length > 0 ? sum / runNanos.length : 0;
+            double squares = 0;
+            for (long t : runNanos) {
+                squares += (t - meanNanos) * (t - meanNanos);
+            }
+            this.stdDevNanos = runNanos.length > 1 ? Math.sqrt(squares / (runNanos.length - 1)) : 0;
+
+            long[] deviations = new long[runNanos.length];
+            for (int i = 0; i < runNanos.length; i++) {
+                deviations[i] = Math.abs(runNanos[i] - medianNanos);
+            }
+            this.spread = medianNanos > 0 ? 1.4826 * median(deviations) / medianNanos : 0;
+
+            int half = runNanos.length / 2;
+            if (half > 0) {
+                long first = median(Arrays.copyOfRange(runNanos, 0, half));
+                long second = median(Arrays.copyOfRange(runNanos, runNanos.length - half, runNanos.length));
+                this.drift = first > 0 ? (double) (second - first) / first : 0;
+            } else {
+                this.drift = 0;
+            }
+            this.stable = runNanos.length >= 2
+                    && spread <= UNSTABLE_THRESHOLD
+                    && Math.abs(drift) <= UNSTABLE_THRESHOLD
+                    && p90Nanos - medianNanos <= 3 * UNSTABLE_THRESHOLD * medianNanos;
+        }
+
+        public double coefficientOfVariation() {
+            return meanNanos > 0 ? stdDevNanos / meanNanos : 0;
+        }
+
+        // Nearest-rank percentile of an already sorted array
+        private static long percentile(long[] sorted, int p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static long median(long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return percentile(sorted, 50);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Benchmark %s | %d runs after %d warmup | min %d ns | median %d ns | p90 %d ns | p99 %d ns | max %d ns"
+                    + " | stddev %.0f ns (%.1f%%) | spread %.1f%% | drift %+.1f%%%s%s%s",
+                passed ? "PASSED" : "FAILED",
+                runNanos.length, warmupIterations,
+                minNanos, medianNanos, p90Nanos, p99Nanos, maxNanos,
+                stdDevNanos, coefficientOfVariation() * 100, spread * 100, drift * 100,
+                stable ? "" : " | UNSTABLE",
+                passed ? "" : " | Output: '" + actualOutput.replace("\n", "\\n").replace("\r", "\\r") + "'",
+                errorMessage != null ? " | Error: " + errorMessage : "");
+        }
+    }
+
+    /**
+     * A solution that reads its input from in and writes its output to out,
+     * typically (in, out) -> { FastIO f = new FastIO(in, out); ...; f.close(); }.
+     * Unlike the Runnable entry points it needs no System.in/System.out
+     * redirection, so several cases can run at once.
+     */
+    @FunctionalInterface
+    public interface Solver {
+        void solve(InputStream in, OutputStream out) throws Exception;
+    }
+
+    // Results of every case in a test directory, in case order
+    public static class SuiteReport {
+        public final List<String> names;
+        public final List<TestResult> results;
+        public final long wallTimeMs;
+        // Runner threads of timed-out cases that could not be stopped and
+        // were still running, and taking a core, when the suite finished
+        public final int leakedRunners;
+
+        public SuiteReport(List<String> names, List<TestResult> results, long wallTimeMs) {
+            this(names, results, wallTimeMs, 0);
+        }
+
+        public SuiteReport(List<String> names, List<TestResult> results, long wallTimeMs, int leakedRunners) {
+            this.names = Collections.unmodifiableList(names);
+            this.results = Collections.unmodifiableList(results);
+            this.wallTimeMs = wallTimeMs;
+            this.leakedRunners = leakedRunners;
+        }
+
+        public int passedCount() {
+            int passed = 0;
+            for (TestResult result : results) {
+                if (result.passed) passed++;
+            }
+            return passed;
+        }
+
+        public boolean allPassed() {
+            return passedCount() == results.size();
+        }
+
+        public boolean passesConstraints(long maxExecutionTimeMs, long maxMemoryBytes) {
+            for (TestResult result : results) {
+                if (!result.passesConstraints(maxExecutionTimeMs, maxMemoryBytes)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            long slowest = 0;
+            for (int i = 0; i < results.size(); i++) {
+                sb.append(names.get(i)).append(": ").append(results.get(i)).append('\n');
+                slowest = Math.max(slowest, results.get(i).executionTimeMs);
+            }
+            sb.append(String.format("Passed %d/%d | Slowest: %dms | Total: %dms",
+                passedCount(), results.size(), slowest, wallTimeMs));
+            if (leakedRunners > 0) {
+                sb.append(" | Leaked runner threads: ").append(leakedRunners);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Absolute or relative tolerance for decimal numbers compared in
+    // CompareMode.TOKENS; the same value as FastIO.EPS
+    public static final double EPS = 1e-9;
+
+    public enum CompareMode {
+        TOKENS, // whitespace-separated tokens; decimals may differ by up to eps, integers must match
+        LINES   // line by line, ignoring whitespace at line ends and around the whole output
+    }
+
+    /**
+     * An OutputStream that checks what is written to it against an expected
+     * stream as it arrives, holding only a small window of either side.
+     * Checking stops at the first mismatch, which mismatch() then describes
+     * by position; matches() and mismatch() treat the output as complete.
+     */
+    public static class OutputComparator extends OutputStream {
+        // Tokens longer than this are compared byte by byte, without tolerance
+        private static final int TOKEN_WINDOW = 64;
+
+        private final InputStream expected;
+        private final byte[] expectedBuf = new byte[1 << 16];
+        private int expectedPtr, expectedLen;
+        private long expectedLine = 1;
+        private final CompareMode mode;
+        private final double eps;
+
+        // Position in the output
+        private long line = 1, column, tokens;
+        // TOKENS: start of the current token, or the part of it already
+        // checked once it outgrew the window (spilled)
+        private final byte[] token = new byte[TOKEN_WINDOW];
+        private final byte[] expectedToken = new byte[TOKEN_WINDOW + 1];
+        private int tokenLen = -1;
+        private boolean spilled;
+        // LINES: whitespace not yet known to be trailing, and whether the
+        // output has got past its leading whitespace, which is ignored as
+        // String.trim() ignored it
+        private byte[] pending = new byte[16];
+        private int pendingLen;
+        private boolean started;
+
+        private String mismatch;
+        private boolean finished;
+
+        public OutputComparator(InputStream expected, CompareMode mode, double eps) {
+            if (mode == null) {
+                throw new IllegalArgumentException("Compare mode is null");
+            }
+            if (!(eps >= 0)) {
+                throw new IllegalArgumentException("Tolerance must be non-negative: " + eps);
+            }
+            this.expected = expected;
+            this.mode = mode;
+            this.eps = eps;
+        }
+
+        public OutputComparator(String expectedFilePath, CompareMode mode, double eps) throws IOException {
+            this(Files.newInputStream(Paths.get(expectedFilePath)), mode, eps);
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (mismatch == null && !finished) {
+                accept((byte) b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            for (int i = off, end = off + len; i < end && mismatch == null && !finished; i++) {
+                accept(b[i]);
+            }
+        }
+
+        public boolean matches() throws IOException {
+            return mismatch() == null;
+        }
+
+        // Description of the first difference, or null if the output matched
+        public synchronized String mismatch() throws IOException {
+            if (!finished) {
+                finished = true;
+                if (mismatch == null) {
+                    finish();
+                }
+            }
+            return mismatch;
+        }
+
+        // Closing ends the output: the solution closing its writer is the usual end
+        @Override
+        public void close() throws IOException {
+            try {
+                mismatch();
+            } finally {
+                expected.close();
+            }
+        }
+
+        private void accept(byte b) throws IOException {
+            if (mode == CompareMode.TOKENS) {
+                acceptToken(b);
+            } else if (started) {
+                acceptLine(b);
+            } else if (!isSpace(b)) {
+                started = true;
+                skipExpectedSpace();
+                acceptLine(b);
+            }
+            if (b == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+        }
+
+        private void acceptToken(byte b) throws IOException {
+            if (isSpace(b)) {
+                if (tokenLen >= 0) endToken();
+            } else if (tokenLen < 0) {
+                tokenLen = 0;
+                spilled = false;
+                token[tokenLen++] = b;
+            } else if (!spilled && tokenLen < TOKEN_WINDOW) {
+                token[tokenLen++] = b;
+            } else {
+                if (!spilled) {
+                    spilled = true;
+                    skipExpectedSpace();
+                    for (int i = 0; i < TOKEN_WINDOW; i++) {
+                        if (readExpected() != (token[i] & 0xff)) {
+                            tokenMismatch(tokens + 1);
+                            return;
+                        }
+                    }
+                }
+                if (readExpected() != (b & 0xff)) tokenMismatch(tokens + 1);
+            }
+        }
+
+        private void endToken() throws IOException {
+            tokens++;
+            if (spilled) {
+                int e = peekExpected();
+                if (e >= 0 && !isSpace(e)) tokenMismatch(tokens);
+            } else {
+                skipExpectedSpace();
+                int expectedTokenLen = 0;
+                for (int e = peekExpected(); e >= 0 && !isSpace(e) && expectedTokenLen <= TOKEN_WINDOW; e = peekExpected()) {
+                    expectedToken[expectedTokenLen++] = (byte) readExpected();
+                }
+                if (expectedTokenLen == 0) {
+                    mismatch = String.format("Token %d (line %d): expected end of output but found '%s'",
+                        tokens, line, text(token, tokenLen));
+                } else if (!Arrays.equals(token, 0, tokenLen, expectedToken, 0, expectedTokenLen)
+                        && !(expectedTokenLen <= TOKEN_WINDOW && numbersClose(expectedTokenLen))) {
+                    mismatch = String.format("Token %d (line %d): expected '%s' but found '%s'",
+                        tokens, line, text(expectedToken, expectedTokenLen), text(token, tokenLen));
+                }
+            }
+            tokenLen = -1;
+        }
+
+        // Only a decimal expected token gets the tolerance; integer answers must be exact
+        private boolean numbersClose(int expectedTokenLen) {
+            if (eps == 0 || !isDecimal(expectedToken, expectedTokenLen)) return false;
+            try {
+                double want = Double.parseDouble(text(expectedToken, expectedTokenLen));
+                double got = Double.parseDouble(text(token, tokenLen));
+                double diff = Math.abs(want - got);
+                return diff <= eps || diff <= eps * Math.abs(want);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private static boolean isDecimal(byte[] b, int len) {
+            for (int i = 0; i < len; i++) {
+                if (b[i] == '.' || b[i] == 'e' || b[i] == 'E') return true;
+            }
+            return false;
+        }
+
+        // Long tokens are not kept, so only where they differ is reported
+        private void tokenMismatch(long index) {
+            mismatch = String.format("Token %d (line %d, column %d): differs from expected line %d",
+                index, line, column + 1, expectedLine);
+        }
+
+        private void acceptLine(byte b) throws IOException {
+            if (b == '\n') {
+                pendingLen = 0;
+                int e = peekExpected();
+                while (e == ' ' || e == '\t' || e == '\r') {
+                    readExpected();
+                    e = peekExpected();
+                }
+                if (e == '\n') {
+                    readExpected();
+                } else if (e >= 0) {
+                    lineMismatch(e, '\n');
+                }
+            } else if (b == ' ' || b == '\t' || b == '\r') {
+                if (pendingLen == pending.length) pending = Arrays.copyOf(pending, pendingLen * 2);
+                pending[pendingLen++] = b;
+            } else {
+                for (int i = 0; i < pendingLen; i++) {
+                    int e = readExpected();
+                    if (e != pending[i]) {
+                        column -= pendingLen - i;
+                        lineMismatch(e, pending[i]);
+                        return;
+                    }
+                }
+                pendingLen = 0;
+                int e = readExpected();
+                if (e != (b & 0xff)) lineMismatch(e, b & 0xff);
+            }
+        }
+
+        private void lineMismatch(int want, int got) {
+            mismatch = String.format("Line %d, column %d: expected %s but found %s",
+                line, column + 1, describe(want), describe(got));
+        }
+
+        private void finish() throws IOException {
+            if (mode == CompareMode.TOKENS) {
+                if (tokenLen >= 0) endToken();
+                if (mismatch != null) return;
+                skipExpectedSpace();
+                if (peekExpected() >= 0) {
+                    mismatch = String.format("Output ended after %d tokens; expected more at line %d",
+                        tokens, expectedLine);
+                }
+            } else {
+                skipExpectedSpace();
+                if (peekExpected() >= 0) {
+                    mismatch = String.format("Output ended at line %d; expected more at line %d",
+                        line, expectedLine);
+                }
+            }
+        }
+
+        private int peekExpected() throws IOException {
+            if (expectedPtr == expectedLen) {
+                expectedLen = expected.read(expectedBuf, 0, expectedBuf.length);
+                expectedPtr = 0;
+                if (expectedLen <= 0) {
+                    expectedLen = 0;
+                    return -1;
+                }
+            }
+            return expectedBuf[expectedPtr] & 0xff;
+        }
+
+        private int readExpected() throws IOException {
+            int e = peekExpected();
+            if (e >= 0) {
+                expectedPtr++;
+                if (e == '\n') expectedLine++;
+            }
+            return e;
+        }
+
+        private void skipExpectedSpace() throws IOException {
+            for (int e = peekExpected(); e >= 0 && isSpace(e); e = peekExpected()) {
+                readExpected();
+            }
+        }
+
+        private static boolean isSpace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+        }
+
+        private static String text(byte[] bytes, int len) {
+            return new String(bytes, 0, len, StandardCharsets.UTF_8);
+        }
+
+        private static String describe(int b) {
+            if (b < 0) return "end of output";
+            if (b == '\n') return "end of line";
+            if (b == '\t') return "'\\t'";
+            if (b == '\r') return "'\\r'";
+            return "'" + (char) b + "'";
+        }
+    }
+
+    // Solutions run on their own thread, with a stack deep enough for the
+    // recursive DFS typical of contest code
+    private static final long RUNNER_STACK_BYTES = 512L << 20;
+    // How long a timed-out run gets to react to an interrupt, and between
+    // attempts to stop it
+    private static final long STOP_GRACE_MS = 100;
+    private static final int STOP_ATTEMPTS = 10;
+    // Timed-out runners that survived both and still spin on their daemon threads
+    private static final Set<Thread> LEAKED_RUNNERS = ConcurrentHashMap.newKeySet();
+
+    // What one run of a solution produced and cost; -1 where not measurable
+    private static class RunOutcome {
+        String output = "";
+        long nanos;
+        long cpuNanos = -1;
+        long allocatedBytes = -1;
+        long peakHeapBytes = -1;
+        long heapGrowthBytes;
+        boolean timedOut;
+        String errorMessage;
+
+        TestResult toResult(boolean passed, String actualOutput) {
+            return new TestResult(passed, actualOutput, nanos / 1_000_000, heapGrowthBytes, errorMessage,
+                nanos, cpuNanos, allocatedBytes, peakHeapBytes, timedOut);
+        }
+    }
     
     public static TestResult testFunction(Runnable func, String input, String expectedOutput) {
         // Auto-detect if input is a file path
@@ -46,30 +567,172 @@ public class Test {
         
         return testFunctionCore(func, input, expectedOutput);
     }
-      private static TestResult testFunctionCore(Runnable func, String input, String expectedOutput) {
+    /**
+     * Like testFunction, but a run still going after timeLimitMs is abandoned
+     * and reported as a timed-out failure
+     */
+    public static TestResult testFunction(Runnable func, String input, String expectedOutput, long timeLimitMs) {
+        return testFunctionCore(func, input, expectedOutput, timeLimitMs);
+    }
+
+    private static TestResult testFunctionCore(Runnable func, String input, String expectedOutput) {
+        return testFunctionCore(func, input, expectedOutput, 0);
+    }
+
+    private static TestResult testFunctionCore(Runnable func, String input, String expectedOutput, long timeLimitMs) {
         if (func == null) {
             return new TestResult(false, "", 0, 0, "Function is null");
         }
         
-        Runtime runtime = Runtime.getRuntime();
+        RunOutcome run = runOnce(func, input.getBytes(StandardCharsets.UTF_8), timeLimitMs);
         
-        // Multiple GC calls for more accurate memory measurement
-        for (int i = 0; i < 3; i++) {
-            runtime.gc();
+        String actualOutput = run.output.trim();
+        String expectedTrimmed = expectedOutput != null ? expectedOutput.trim() : "";
+        boolean passed = actualOutput.equals(expectedTrimmed) && run.errorMessage == null;
+        
+        return run.toResult(passed, actualOutput);
+    }
+
+    /**
+     * Runs body on a fresh thread and measures it: wall time, the thread's CPU
+     * time and allocated bytes (its totals, since the thread is new), and the
+     * peak heap from the heap memory pools, reset just before the run (only
+     * meaningful when nothing else runs meanwhile, hence measureHeap). With a
+     * positive timeLimitMs, a body still running after that long is interrupted
+     * and abandoned; being a daemon thread it cannot keep the JVM alive.
+     */
+    private static RunOutcome measure(Body body, long timeLimitMs, boolean measureHeap) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        com.sun.management.ThreadMXBean allocation = threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemoryEnabled()
+                ? (com.sun.management.ThreadMXBean) threads : null;
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        long heapBefore = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (measureHeap && pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                heapPools.add(pool);
+                heapBefore += pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+        }
+
+        RunOutcome run = new RunOutcome();
+        Thread worker = new Thread(null, () -> {
+            long startTime = System.nanoTime();
             try {
-                Thread.sleep(10); // Allow GC to complete
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+                body.run();
+            } catch (Exception e) {
+                run.errorMessage = e.getClass().getSimpleName() + ": " + 
+                              (e.getMessage() != null ? e.getMessage() : "No message");
+            } catch (Error e) {
+                run.errorMessage = "Error: " + e.getClass().getSimpleName() + ": " + 
+                              (e.getMessage() != null ? e.getMessage() : "No message");
+            }
+            run.nanos = System.nanoTime() - startTime;
+            if (cpuTime) {
+                run.cpuNanos = threads.getCurrentThreadCpuTime();
             }
+            if (allocation != null) {
+                run.allocatedBytes = allocation.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }, "Test-Runner", RUNNER_STACK_BYTES);
+        worker.setDaemon(true);
+
+        long startTime = System.nanoTime();
+        worker.start();
+        try {
+            worker.join(Math.max(timeLimitMs, 0));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        
-        long memoryBefore = runtime.totalMemory() - runtime.freeMemory();
-        
-        // Create test streams
-        ByteArrayInputStream testIn = new ByteArrayInputStream(
-            input.getBytes(StandardCharsets.UTF_8));
+
+        RunOutcome result = run;
+        if (worker.isAlive()) {
+            // The abandoned worker may still write to run, so report a fresh outcome
+            result = new RunOutcome();
+            result.nanos = System.nanoTime() - startTime;
+            result.cpuNanos = cpuTime ? threads.getThreadCpuTime(worker.getId()) : -1;
+            result.allocatedBytes = allocation != null ? allocation.getThreadAllocatedBytes(worker.getId()) : -1;
+            result.timedOut = true;
+            result.errorMessage = "Time limit exceeded: aborted after " + result.nanos / 1_000_000 + "ms";
+            if (!stopRunner(worker, threads)) {
+                LEAKED_RUNNERS.add(worker);
+                result.errorMessage += " (runner thread could not be stopped and keeps running)";
+            }
+        }
+
+        if (measureHeap) {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            result.peakHeapBytes = peak;
+            result.heapGrowthBytes = Math.max(0, peak - heapBefore);
+        } else {
+            result.heapGrowthBytes = -1;
+        }
+        return result;
+    }
+
+    // Interrupts a runner past its limit, then stops it if it ignores that.
+    // Thread.stop is the only way to end a CPU-bound loop inside this JVM;
+    // JDK 20 and later refuse it, and such a runner is then left running
+    @SuppressWarnings({ "deprecation", "removal" })
+    private static boolean stopRunner(Thread worker, ThreadMXBean threads) {
+        try {
+            worker.interrupt();
+            worker.join(STOP_GRACE_MS);
+            for (int attempt = 0; attempt < STOP_ATTEMPTS && worker.isAlive(); attempt++) {
+                if (safeToStop(worker, threads)) {
+                    try {
+                        worker.stop();
+                    } catch (UnsupportedOperationException e) {
+                        return false;
+                    }
+                }
+                worker.join(STOP_GRACE_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !worker.isAlive();
+    }
+
+    // Stopped inside a static initializer, a class stays unusable for every
+    // later run; stopped holding a lock, it may leave shared state half-updated
+    private static boolean safeToStop(Thread worker, ThreadMXBean threads) {
+        boolean locks = threads.isObjectMonitorUsageSupported() && threads.isSynchronizerUsageSupported();
+        ThreadInfo info = threads.getThreadInfo(new long[] { worker.getId() }, locks, locks)[0];
+        if (info == null) {
+            return false;
+        }
+        if (locks && (info.getLockedMonitors().length > 0 || info.getLockedSynchronizers().length > 0)) {
+            return false;
+        }
+        for (StackTraceElement frame : info.getStackTrace()) {
+            if (frame.getMethodName().equals("<clinit>")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface Body {
+        void run() throws Exception;
+    }
+
+    private static RunOutcome runOnce(Runnable func, byte[] input, long timeLimitMs) {
         ByteArrayOutputStream testOut = new ByteArrayOutputStream();
+        RunOutcome run = runOnce(func, new ByteArrayInputStream(input), testOut, timeLimitMs);
+        run.output = testOut.toString(StandardCharsets.UTF_8);
+        return run;
+    }
+
+    private static RunOutcome runOnce(Runnable func, InputStream testIn, OutputStream testOut, long timeLimitMs) {
+        // Create test streams
         ByteArrayOutputStream testErr = new ByteArrayOutputStream();
         
         // Store original streams
@@ -82,46 +745,73 @@ public class Test {
         System.setOut(new PrintStream(testOut, true, StandardCharsets.UTF_8));
         System.setErr(new PrintStream(testErr, true, StandardCharsets.UTF_8));
         
-        long startTime = System.nanoTime();
-        String errorMessage = null;
-        
+        RunOutcome run;
         try {
-            func.run();
-        } catch (Exception e) {
-            errorMessage = e.getClass().getSimpleName() + ": " + 
-                          (e.getMessage() != null ? e.getMessage() : "No message");
-        } catch (Error e) {
-            errorMessage = "Error: " + e.getClass().getSimpleName() + ": " + 
-                          (e.getMessage() != null ? e.getMessage() : "No message");
+            run = measure(func::run, timeLimitMs, true);
         } finally {
             // Always restore original streams
             System.setIn(originalIn);
             System.setOut(originalOut);
             System.setErr(originalErr);
         }
-        
-        long endTime = System.nanoTime();
-        long executionTime = (endTime - startTime) / 1_000_000; // Convert to milliseconds
-        
-        // Memory measurement with multiple samples
-        for (int i = 0; i < 3; i++) {
-            runtime.gc();
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
+        return run;
+    }
+
+    /**
+     * Runs func warmupIterations times untimed, then measuredIterations times
+     * timed, feeding it the same input on every run. Every run's output must
+     * match for the result to pass
+     */
+    public static BenchmarkResult benchmarkFunction(Runnable func, String input, String expectedOutput,
+                                                    int warmupIterations, int measuredIterations) {
+        if (func == null) {
+            return new BenchmarkResult(false, "", 0, "Function is null", warmupIterations, new long[0]);
         }
-        
-        long memoryAfter = runtime.totalMemory() - runtime.freeMemory();
-        long memoryUsed = Math.max(0, memoryAfter - memoryBefore);
-        
-        String actualOutput = testOut.toString(StandardCharsets.UTF_8).trim();
+        if (warmupIterations < 0 || measuredIterations < 1) {
+            return new BenchmarkResult(false, "", 0, "Need at least one measured iteration and no negative warmup",
+                warmupIterations, new long[0]);
+        }
+
+        byte[] inputBytes = input.getBytes(StandardCharsets.UTF_8);
         String expectedTrimmed = expectedOutput != null ? expectedOutput.trim() : "";
-        boolean passed = actualOutput.equals(expectedTrimmed) && errorMessage == null;
-        
-        return new TestResult(passed, actualOutput, executionTime, memoryUsed, errorMessage);
+        String actualOutput = "";
+        String errorMessage = null;
+        boolean passed = true;
+
+        for (int i = 0; i < warmupIterations; i++) {
+            runOnce(func, inputBytes, 0);
+        }
+
+        long[] runNanos = new long[measuredIterations];
+        for (int i = 0; i < measuredIterations; i++) {
+            RunOutcome run = runOnce(func, inputBytes, 0);
+            runNanos[i] = run.nanos;
+            String output = run.output.trim();
+            if (passed && (run.errorMessage != null || !output.equals(expectedTrimmed))) {
+                // Keep the first failing run's output and error
+                passed = false;
+                actualOutput = output;
+                errorMessage = run.errorMessage;
+            } else if (i == 0) {
+                actualOutput = output;
+            }
+        }
+
+        return new BenchmarkResult(passed, actualOutput, 0, errorMessage, warmupIterations, runNanos);
+    }
+
+    public static BenchmarkResult benchmarkFunctionWithFileInput(Runnable func, String inputFilePath, String expectedOutput,
+                                                                 int warmupIterations, int measuredIterations) {
+        try {
+            String input = Files.readString(Paths.get(inputFilePath), StandardCharsets.UTF_8);
+            if (expectedOutput != null && expectedOutput.endsWith(".txt")) {
+                expectedOutput = Files.readString(Paths.get(expectedOutput), StandardCharsets.UTF_8);
+            }
+            return benchmarkFunction(func, input, expectedOutput, warmupIterations, measuredIterations);
+        } catch (IOException e) {
+            return new BenchmarkResult(false, "", 0, "Failed to read files: " + e.getMessage(),
+                warmupIterations, new long[0]);
+        }
     }
       public static TestResult testFunctionWithFileInput(Runnable func, String inputFilePath, String expectedOutput) {
         if (inputFilePath == null || inputFilePath.trim().isEmpty()) {
@@ -129,17 +819,14 @@ public class Test {
         }
         
         try {
-            String input = Files.readString(Paths.get(inputFilePath), StandardCharsets.UTF_8);
-            
             // Check if expected output is also a file path
             if (expectedOutput != null && expectedOutput.endsWith(".txt")) {
-                try {
-                    String expectedFromFile = Files.readString(Paths.get(expectedOutput), StandardCharsets.UTF_8);
-                    return testFunctionCore(func, input, expectedFromFile);
-                } catch (IOException e) {
-                    return new TestResult(false, "", 0, 0, "Failed to read expected output file: " + e.getMessage());
+                if (!Files.isReadable(Paths.get(expectedOutput))) {
+                    return new TestResult(false, "", 0, 0, "Failed to read expected output file: " + expectedOutput);
                 }
+                return testFunctionWithFileInputAndOutput(func, inputFilePath, expectedOutput);
             } else {
+                String input = Files.readString(Paths.get(inputFilePath), StandardCharsets.UTF_8);
                 return testFunctionCore(func, input, expectedOutput);
             }
         } catch (IOException e) {
@@ -147,7 +834,25 @@ public class Test {
         }
     }
     
+    /**
+     * Compares in CompareMode.LINES, which accepts what the trimmed comparison
+     * did and also whitespace at line ends. The output is streamed, so the
+     * result's actualOutput is empty
+     */
     public static TestResult testFunctionWithFileInputAndOutput(Runnable func, String inputFilePath, String expectedOutputFilePath) {
+        return testFunctionWithFileInputAndOutput(func, inputFilePath, expectedOutputFilePath, CompareMode.LINES, 0);
+    }
+
+    /**
+     * Streams the input file to func and compares its output with the expected
+     * file as it is written, so neither side is ever held in memory; the result
+     * carries an empty actualOutput, and a wrong answer is described in errorMessage
+     */
+    public static TestResult testFunctionWithFileInputAndOutput(Runnable func, String inputFilePath, String expectedOutputFilePath,
+                                                                CompareMode mode, double eps) {
+        if (func == null) {
+            return new TestResult(false, "", 0, 0, "Function is null");
+        }
         if (inputFilePath == null || inputFilePath.trim().isEmpty()) {
             return new TestResult(false, "", 0, 0, "Input file path is null or empty");
         }
@@ -155,17 +860,125 @@ public class Test {
             return new TestResult(false, "", 0, 0, "Expected output file path is null or empty");
         }
         
-        try {
-            String input = Files.readString(Paths.get(inputFilePath), StandardCharsets.UTF_8);
-            String expectedOutput = Files.readString(Paths.get(expectedOutputFilePath), StandardCharsets.UTF_8);
-            return testFunctionCore(func, input, expectedOutput);
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(Paths.get(inputFilePath)), 1 << 16);
+             OutputComparator comparator = new OutputComparator(expectedOutputFilePath, mode, eps)) {
+            RunOutcome run = runOnce(func, input, comparator, 0);
+            return compared(run, comparator);
         } catch (IOException e) {
             return new TestResult(false, "", 0, 0, "Failed to read files: " + e.getMessage());
         }
     }
+
+    // A run checked by an OutputComparator: a wrong answer becomes its error
+    private static TestResult compared(RunOutcome run, OutputComparator comparator) throws IOException {
+        if (run.errorMessage == null && !run.timedOut && !comparator.matches()) {
+            run.errorMessage = "Wrong answer: " + comparator.mismatch();
+        }
+        return run.toResult(run.errorMessage == null, "");
+    }
     
     public static String getActualOutput(Runnable func, String input) {
         TestResult result = testFunction(func, input, "");
         return result.actualOutput;
     }
+
+    public static SuiteReport testDirectory(Solver solver, String directory) {
+        return testDirectory(solver, directory, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * Runs solver on every NAME.in / NAME.out pair in directory (1.in, 2.in, ...
+     * in numeric order, other names alphabetically), up to threads cases at a
+     * time. Each case gets its own streams, so System.in/System.out are left
+     * alone. Cases share the CPU and heap: wall times are inflated when threads
+     * exceeds the free cores, and heap peaks are only measured with threads = 1.
+     */
+    public static SuiteReport testDirectory(Solver solver, String directory, int threads, long timeLimitMs) {
+        return testDirectory(solver, directory, threads, timeLimitMs, CompareMode.LINES, 0);
+    }
+
+    public static SuiteReport testDirectory(Solver solver, String directory, int threads, long timeLimitMs,
+                                            CompareMode mode, double eps) {
+        if (solver == null) {
+            throw new IllegalArgumentException("Solver is null");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+
+        List<Path> inputs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Paths.get(directory))) {
+            files.filter(file -> file.getFileName().toString().endsWith(".in")).forEach(inputs::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list test directory " + directory, e);
+        }
+        inputs.sort((a, b) -> compareCaseNames(caseName(a), caseName(b)));
+
+        boolean measureHeap = threads == 1;
+        Set<Thread> leakedBefore = new HashSet<>(LEAKED_RUNNERS);
+        long startTime = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(inputs.size(), 1)));
+        try {
+            List<Future<TestResult>> pending = new ArrayList<>();
+            for (Path input : inputs) {
+                pending.add(pool.submit(() -> runCase(solver, input, timeLimitMs, measureHeap, mode, eps)));
+            }
+
+            List<String> names = new ArrayList<>();
+            List<TestResult> results = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                names.add(caseName(inputs.get(i)));
+                try {
+                    results.add(pending.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new TestResult(false, "", 0, 0, "Harness failure: " + e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(new TestResult(false, "", 0, 0, "Interrupted"));
+                }
+            }
+            long wallTimeMs = (System.nanoTime() - startTime) / 1_000_000;
+            LEAKED_RUNNERS.removeIf(runner -> !runner.isAlive());
+            int leaked = 0;
+            for (Thread runner : LEAKED_RUNNERS) {
+                if (!leakedBefore.contains(runner)) leaked++;
+            }
+            return new SuiteReport(names, results, wallTimeMs, leaked);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static TestResult runCase(Solver solver, Path inputFile, long timeLimitMs, boolean measureHeap,
+                                      CompareMode mode, double eps) {
+        String name = inputFile.getFileName().toString();
+        Path expectedFile = inputFile.resolveSibling(name.substring(0, name.length() - 3) + ".out");
+        if (!Files.exists(expectedFile)) {
+            return new TestResult(false, "", 0, 0, "No expected output file " + expectedFile);
+        }
+
+        // A timed-out solver may still be using these; closing them under it
+        // only makes its reads and writes fail
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(inputFile), 1 << 16);
+             OutputComparator out = new OutputComparator(expectedFile.toString(), mode, eps)) {
+            RunOutcome run = measure(() -> solver.solve(in, out), timeLimitMs, measureHeap);
+            return compared(run, out);
+        } catch (IOException e) {
+            return new TestResult(false, "", 0, 0, "Failed to read files: " + e.getMessage());
+        }
+    }
+
+    private static String caseName(Path inputFile) {
+        String name = inputFile.getFileName().toString();
+        return name.substring(0, name.length() - 3);
+    }
+
+    // Numeric names in numeric order ahead of the rest, so 2 runs before 10
+    private static int compareCaseNames(String a, String b) {
+        boolean numericA = !a.isEmpty() && a.length() < 19 && a.chars().allMatch(Character::isDigit);
+        boolean numericB = !b.isEmpty() && b.length() < 19 && b.chars().allMatch(Character::isDigit);
+        if (numericA && numericB) return Long.compare(Long.parseLong(a), Long.parseLong(b));
+        if (numericA != numericB) return numericA ? -1 : 1;
+        return a.compareTo(b);
+    }
 }
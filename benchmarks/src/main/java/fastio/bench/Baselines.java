@@ -0,0 +1,125 @@
+package fastio.bench;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.StringTokenizer;
+
+/**
+ * The JDK-based readers FastIO is measured against
+ */
+final class Baselines {
+    private Baselines() {
+    }
+
+    // The classic BufferedReader + StringTokenizer reader
+    static final class TokenReader {
+        private final BufferedReader br;
+        private StringTokenizer st;
+
+        TokenReader(InputStream in) {
+            br = new BufferedReader(new InputStreamReader(in), 65536);
+        }
+
+        String next() throws IOException {
+            while (st == null || !st.hasMoreTokens()) {
+                st = new StringTokenizer(br.readLine());
+            }
+            return st.nextToken();
+        }
+
+        String nextLine() throws IOException {
+            return br.readLine();
+        }
+
+        int nextInt() throws IOException {
+            return Integer.parseInt(next());
+        }
+
+        long nextLong() throws IOException {
+            return Long.parseLong(next());
+        }
+
+        double nextDouble() throws IOException {
+            return Double.parseDouble(next());
+        }
+    }
+
+    // The DataInputStream byte reader common in competitive programming templates
+    static final class DataInputReader {
+        private final DataInputStream din;
+        private final byte[] buffer = new byte[1 << 16];
+        private int ptr, len;
+
+        DataInputReader(InputStream in) {
+            din = new DataInputStream(in);
+        }
+
+        private byte read() throws IOException {
+            if (ptr == len) {
+                len = din.read(buffer, 0, buffer.length);
+                ptr = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buffer[ptr++];
+        }
+
+        long nextLong() throws IOException {
+            long ret = 0;
+            byte c = read();
+            while (c <= ' ')
+                c = read();
+            boolean neg = c == '-';
+            if (neg)
+                c = read();
+            do {
+                ret = ret * 10 + c - '0';
+            } while ((c = read()) >= '0' && c <= '9');
+            return neg ? -ret : ret;
+        }
+
+        int nextInt() throws IOException {
+            return (int) nextLong();
+        }
+
+        // Not correctly rounded, which is the usual trade-off in such templates
+        double nextDouble() throws IOException {
+            double ret = 0, div = 1;
+            byte c = read();
+            while (c <= ' ')
+                c = read();
+            boolean neg = c == '-';
+            if (neg)
+                c = read();
+            do {
+                ret = ret * 10 + c - '0';
+            } while ((c = read()) >= '0' && c <= '9');
+            if (c == '.') {
+                while ((c = read()) >= '0' && c <= '9') {
+                    ret += (c - '0') / (div *= 10);
+                }
+            }
+            if (c == 'E' || c == 'e') {
+                int exp = (int) nextLong();
+                ret *= Math.pow(10, exp);
+            }
+            return neg ? -ret : ret;
+        }
+
+        String next() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            byte c = read();
+            while (c <= ' ')
+                c = read();
+            do {
+                sb.append((char) c);
+            } while ((c = read()) > ' ');
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package fastio.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Deterministic benchmark inputs. The shape decides the line layout:
+ * COLUMN puts one token per line, ROW puts every token on a single line and
+ * GRID wraps tokens into lines of GRID_WIDTH.
+ */
+public final class InputGenerator {
+    static final int GRID_WIDTH = 1000;
+
+    public enum Shape {
+        COLUMN, ROW, GRID
+    }
+
+    private InputGenerator() {
+    }
+
+    static byte[] ints(int count, Shape shape, long seed) {
+        Random random = new Random(seed);
+        return layout(count, shape, i -> Integer.toString(random.nextInt()));
+    }
+
+    static byte[] longs(int count, Shape shape, long seed) {
+        Random random = new Random(seed);
+        return layout(count, shape, i -> Long.toString(random.nextLong()));
+    }
+
+    // Mix of short fixed-point values and full-precision doubles, like geometry inputs
+    static byte[] doubles(int count, Shape shape, long seed) {
+        Random random = new Random(seed);
+        return layout(count, shape, i -> i % 4 == 0
+                ? Double.toString((random.nextDouble() - 0.5) * 1e9)
+                : String.format(Locale.ROOT, "%.3f", (random.nextDouble() - 0.5) * 1e6));
+    }
+
+    static byte[] words(int count, Shape shape, long seed) {
+        Random random = new Random(seed);
+        return layout(count, shape, i -> {
+            char[] word = new char[1 + random.nextInt(12)];
+            for (int j = 0; j < word.length; j++) {
+                word[j] = (char) ('a' + random.nextInt(26));
+            }
+            return new String(word);
+        });
+    }
+
+    // rows lines of cols non-negative ints
+    static byte[] matrix(int rows, int cols, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(rows * cols * 7);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (c > 0)
+                    sb.append(' ');
+                sb.append(random.nextInt(1000000));
+            }
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // m lines "u v" (or "u v w" when weighted) with 1-based vertices in 1..n
+    static byte[] edges(int n, int m, boolean weighted, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(m * 16);
+        for (int i = 0; i < m; i++) {
+            sb.append(1 + random.nextInt(n)).append(' ').append(1 + random.nextInt(n));
+            if (weighted)
+                sb.append(' ').append(random.nextInt(1000000000));
+            sb.append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] layout(int count, Shape shape, IntFunction<String> token) {
+        StringBuilder sb = new StringBuilder(count * 12);
+        for (int i = 0; i < count; i++) {
+            sb.append(token.apply(i));
+            boolean lineEnd = shape == Shape.COLUMN
+                    || (shape == Shape.GRID && i % GRID_WIDTH == GRID_WIDTH - 1)
+                    || i == count - 1;
+            sb.append(lineEnd ? '\n' : ' ');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
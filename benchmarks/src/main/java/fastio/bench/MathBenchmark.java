@@ -0,0 +1,166 @@
+package fastio.bench;
+
+import fastio.bench.FastIOLib.FastIO;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Modular arithmetic over size values: FastIO.Modulus and Combinatorics
+ * against the (a * b) % mod code they replace, NTT convolution and the
+ * prime sieves. The modulus is a field, as it is in solutions that pick
+ * MOD or MOD2 at run time, so % is a real divide.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class MathBenchmark {
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    @Param({ "1000000007" })
+    public int mod;
+
+    private FastIO.Modulus modulus;
+    private int[] values;
+    private int[] nttValues;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        modulus = new FastIO.Modulus(mod);
+        Random random = new Random(11);
+        values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = 1 + random.nextInt(mod - 1);
+        }
+        nttValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            nttValues[i] = values[i] % FastIO.MOD2;
+        }
+    }
+
+    @Benchmark
+    public long remainderProductChain() {
+        long acc = 1;
+        for (int v : values) {
+            acc = acc * v % mod;
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public int modulusProductChain() {
+        int acc = 1;
+        for (int v : values) {
+            acc = modulus.mul(acc, v);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    public long modPowInverses() {
+        long sum = 0;
+        for (int i = 0; i < values.length; i += 16) {
+            sum += FastIO.modPow(values[i], mod - 2, mod);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long modulusPowInverses() {
+        long sum = 0;
+        for (int i = 0; i < values.length; i += 16) {
+            sum += modulus.pow(values[i], mod - 2);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] modulusBatchInverses() {
+        return modulus.inverses(values);
+    }
+
+    // C(size, r) for every r from factorials and a Fermat inverse per call,
+    // the way solutions computed it before Combinatorics
+    @Benchmark
+    public long fermatBinomials() {
+        long[] fact = new long[size + 1];
+        fact[0] = 1;
+        for (int i = 1; i <= size; i++) {
+            fact[i] = fact[i - 1] * i % mod;
+        }
+        long sum = 0;
+        for (int r = 0; r <= size; r++) {
+            sum += fact[size] * FastIO.modInv(fact[r], mod) % mod * FastIO.modInv(fact[size - r], mod) % mod;
+        }
+        return sum;
+    }
+
+    // Two distinct size-long polynomials, so multiply does not take the squaring path
+    @Benchmark
+    public int[] nttConvolution() {
+        return FastIO.NTT.multiply(nttValues, nttValues.clone());
+    }
+
+    @Benchmark
+    public int[] nttConvolutionAnyMod() {
+        return FastIO.Ntt.multiplyMod(values, values.clone(), mod);
+    }
+
+    // Primes up to 100 * size: the boolean[] sieve solutions write by hand
+    // against the bit-packed and linear sieves
+    @Benchmark
+    public int booleanSieve() {
+        int limit = 100 * size;
+        boolean[] composite = new boolean[limit + 1];
+        int count = 0;
+        for (int i = 2; i <= limit; i++) {
+            if (!composite[i]) {
+                count++;
+                for (long j = (long) i * i; j <= limit; j += i) {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int bitSieve() {
+        return new FastIO.PrimeSieve(100 * size).count();
+    }
+
+    @Benchmark
+    public int[] linearSieve() {
+        return new FastIO.LinearSieve(100 * size).primes();
+    }
+
+    @Benchmark
+    public long segmentedSieveNear1e12() {
+        return FastIO.PrimeSieve.countPrimesInRange(1_000_000_000_000L - 100L * size, 1_000_000_000_000L, true);
+    }
+
+    @Benchmark
+    public long tableBinomials() {
+        FastIO.Combinatorics combinatorics = new FastIO.Combinatorics(modulus);
+        long sum = 0;
+        for (int r = 0; r <= size; r++) {
+            sum += combinatorics.nCr(size, r);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,246 @@
+package fastio.bench;
+
+import fastio.bench.FastIOLib.FastIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Token readers: one operation parses a whole generated input of size tokens.
+ * Each FastIO method is paired with Scanner, BufferedReader + StringTokenizer
+ * and DataInputStream versions reading the same bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class ReadBenchmark {
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    @Param({ "COLUMN", "ROW", "GRID" })
+    public InputGenerator.Shape shape;
+
+    @Param({ "ASYNC" })
+    public FastIO.Prefetch prefetch;
+
+    private byte[] ints;
+    private byte[] longs;
+    private byte[] doubles;
+    private byte[] words;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        ints = InputGenerator.ints(size, shape, 1);
+        longs = InputGenerator.longs(size, shape, 2);
+        doubles = InputGenerator.doubles(size, shape, 3);
+        words = InputGenerator.words(size, shape, 4);
+    }
+
+    private FastIO fastIO(byte[] input) {
+        return new FastIO(new ByteArrayInputStream(input), OutputStream.nullOutputStream(), prefetch);
+    }
+
+    private static Scanner scanner(byte[] input) {
+        Scanner sc = new Scanner(new ByteArrayInputStream(input));
+        sc.useLocale(Locale.ROOT);
+        return sc;
+    }
+
+    // nextInt
+
+    @Benchmark
+    public long fastIONextInt() {
+        try (FastIO f = fastIO(ints)) {
+            long sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += f.nextInt();
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long fastIONextIntArray() {
+        try (FastIO f = fastIO(ints)) {
+            return f.nextIntArray(size).length;
+        }
+    }
+
+    @Benchmark
+    public long fastIONextIntArrayParallel() {
+        try (FastIO f = fastIO(ints)) {
+            return f.nextIntArrayParallel(size).length;
+        }
+    }
+
+    @Benchmark
+    public long scannerNextInt() {
+        Scanner sc = scanner(ints);
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += sc.nextInt();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderNextInt() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(ints));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextInt();
+        return sum;
+    }
+
+    @Benchmark
+    public long dataInputStreamNextInt() throws IOException {
+        Baselines.DataInputReader r = new Baselines.DataInputReader(new ByteArrayInputStream(ints));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextInt();
+        return sum;
+    }
+
+    // nextLong
+
+    @Benchmark
+    public long fastIONextLong() {
+        try (FastIO f = fastIO(longs)) {
+            long sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += f.nextLong();
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long scannerNextLong() {
+        Scanner sc = scanner(longs);
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += sc.nextLong();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderNextLong() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(longs));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextLong();
+        return sum;
+    }
+
+    @Benchmark
+    public long dataInputStreamNextLong() throws IOException {
+        Baselines.DataInputReader r = new Baselines.DataInputReader(new ByteArrayInputStream(longs));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextLong();
+        return sum;
+    }
+
+    // nextDouble
+
+    @Benchmark
+    public double fastIONextDouble() {
+        try (FastIO f = fastIO(doubles)) {
+            double sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += f.nextDouble();
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public double scannerNextDouble() {
+        Scanner sc = scanner(doubles);
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += sc.nextDouble();
+        return sum;
+    }
+
+    @Benchmark
+    public double bufferedReaderNextDouble() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(doubles));
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextDouble();
+        return sum;
+    }
+
+    @Benchmark
+    public double dataInputStreamNextDouble() throws IOException {
+        Baselines.DataInputReader r = new Baselines.DataInputReader(new ByteArrayInputStream(doubles));
+        double sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.nextDouble();
+        return sum;
+    }
+
+    // next
+
+    @Benchmark
+    public long fastIONext() {
+        try (FastIO f = fastIO(words)) {
+            long sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += f.next().length();
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long fastIONextToken() {
+        try (FastIO f = fastIO(words)) {
+            long sum = 0;
+            for (int i = 0; i < size; i++)
+                sum += f.nextToken().length();
+            return sum;
+        }
+    }
+
+    @Benchmark
+    public long scannerNext() {
+        Scanner sc = scanner(words);
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += sc.next().length();
+        return sum;
+    }
+
+    @Benchmark
+    public long bufferedReaderNext() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(words));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.next().length();
+        return sum;
+    }
+
+    @Benchmark
+    public long dataInputStreamNext() throws IOException {
+        Baselines.DataInputReader r = new Baselines.DataInputReader(new ByteArrayInputStream(words));
+        long sum = 0;
+        for (int i = 0; i < size; i++)
+            sum += r.next().length();
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+package fastio.bench;
+
+import fastio.bench.FastIOLib.FastIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole-structure readers: an until-EOF integer matrix and an edge list,
+ * against BufferedReader + StringTokenizer code building the same result
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class StructuredReadBenchmark {
+    @Param({ "500", "2000" })
+    public int rows;
+
+    @Param({ "2000" })
+    public int cols;
+
+    @Param({ "200000" })
+    public int nodes;
+
+    @Param({ "1000000" })
+    public int edges;
+
+    @Param({ "ASYNC" })
+    public FastIO.Prefetch prefetch;
+
+    private byte[] matrix;
+    private byte[] edgeList;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        matrix = InputGenerator.matrix(rows, cols, 5);
+        edgeList = InputGenerator.edges(nodes, edges, false, 6);
+    }
+
+    private FastIO fastIO(byte[] input) {
+        return new FastIO(new ByteArrayInputStream(input), OutputStream.nullOutputStream(), prefetch);
+    }
+
+    @Benchmark
+    public int[][] fastIOReadIntMatrix() {
+        try (FastIO f = fastIO(matrix)) {
+            return f.readIntMatrix();
+        }
+    }
+
+    @Benchmark
+    public FastIO.IntGrid fastIOReadIntGrid() {
+        try (FastIO f = fastIO(matrix)) {
+            return f.readIntGrid();
+        }
+    }
+
+    @Benchmark
+    public int[][] bufferedReaderIntMatrix() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(matrix));
+        List<int[]> out = new ArrayList<>();
+        String line;
+        while ((line = r.nextLine()) != null && !line.isEmpty()) {
+            StringTokenizer st = new StringTokenizer(line);
+            int[] row = new int[st.countTokens()];
+            for (int i = 0; i < row.length; i++)
+                row[i] = Integer.parseInt(st.nextToken());
+            out.add(row);
+        }
+        return out.toArray(new int[0][]);
+    }
+
+    @Benchmark
+    public List<List<Integer>> fastIOReadAdjacencyList() {
+        try (FastIO f = fastIO(edgeList)) {
+            return f.readAdjacencyList(nodes, edges);
+        }
+    }
+
+    @Benchmark
+    public FastIO.CsrGraph fastIOReadCsrGraph() {
+        try (FastIO f = fastIO(edgeList)) {
+            return f.readCsrGraph(nodes, edges, false, true);
+        }
+    }
+
+    @Benchmark
+    public List<List<Integer>> bufferedReaderAdjacencyList() throws IOException {
+        Baselines.TokenReader r = new Baselines.TokenReader(new ByteArrayInputStream(edgeList));
+        List<List<Integer>> adj = new ArrayList<>();
+        for (int i = 0; i <= nodes; i++)
+            adj.add(new ArrayList<>());
+        for (int i = 0; i < edges; i++) {
+            int u = r.nextInt();
+            int v = r.nextInt();
+            adj.get(u).add(v);
+            adj.get(v).add(u);
+        }
+        return adj;
+    }
+}
@@ -0,0 +1,152 @@
+package fastio.bench;
+
+import fastio.bench.FastIOLib.FastIO;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The printArray family against PrintWriter over BufferedOutputStream, the
+ * setup FastIO used before it formatted numbers itself. Output is discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class WriteBenchmark {
+    @Param({ "100000", "1000000" })
+    public int size;
+
+    private int[] ints;
+    private long[] longs;
+    private int[][] grid;
+    private List<Integer> boxed;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        Random random = new Random(7);
+        ints = new int[size];
+        longs = new long[size];
+        boxed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ints[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            boxed.add(ints[i]);
+        }
+        grid = new int[size / InputGenerator.GRID_WIDTH][];
+        for (int r = 0; r < grid.length; r++) {
+            grid[r] = java.util.Arrays.copyOfRange(ints, r * InputGenerator.GRID_WIDTH,
+                    (r + 1) * InputGenerator.GRID_WIDTH);
+        }
+    }
+
+    private static FastIO fastIO() {
+        return new FastIO(new ByteArrayInputStream(new byte[0]), OutputStream.nullOutputStream(),
+                FastIO.Prefetch.SYNC);
+    }
+
+    private static PrintWriter printWriter() {
+        return new PrintWriter(new BufferedOutputStream(OutputStream.nullOutputStream(), 65536), false);
+    }
+
+    @Benchmark
+    public void fastIOPrintIntArray() {
+        try (FastIO f = fastIO()) {
+            f.printArray(ints);
+        }
+    }
+
+    @Benchmark
+    public void printWriterIntArray() {
+        PrintWriter pw = printWriter();
+        for (int i = 0; i < ints.length; i++) {
+            if (i > 0)
+                pw.print(' ');
+            pw.print(ints[i]);
+        }
+        pw.println();
+        pw.close();
+    }
+
+    @Benchmark
+    public void fastIOPrintLongArray() {
+        try (FastIO f = fastIO()) {
+            f.printArray(longs);
+        }
+    }
+
+    @Benchmark
+    public void printWriterLongArray() {
+        PrintWriter pw = printWriter();
+        for (int i = 0; i < longs.length; i++) {
+            if (i > 0)
+                pw.print(' ');
+            pw.print(longs[i]);
+        }
+        pw.println();
+        pw.close();
+    }
+
+    @Benchmark
+    public void fastIOPrint2DArray() {
+        try (FastIO f = fastIO()) {
+            f.print2DArray(grid);
+        }
+    }
+
+    @Benchmark
+    public void printWriter2DArray() {
+        PrintWriter pw = printWriter();
+        for (int[] row : grid) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0)
+                    pw.print(' ');
+                pw.print(row[i]);
+            }
+            pw.println();
+        }
+        pw.close();
+    }
+
+    @Benchmark
+    public void fastIOPrintList() {
+        try (FastIO f = fastIO()) {
+            f.printList(boxed);
+        }
+    }
+
+    @Benchmark
+    public void fastIOPrintlnLoop() {
+        try (FastIO f = fastIO()) {
+            for (int v : ints)
+                f.println(v);
+        }
+    }
+
+    @Benchmark
+    public void printWriterPrintlnLoop() {
+        PrintWriter pw = printWriter();
+        for (int v : ints)
+            pw.println(v);
+        pw.close();
+    }
+}